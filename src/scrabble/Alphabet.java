@@ -0,0 +1,114 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * The {@code Alphabet} class maps the letters of a language to dense codes, so that anything keyed by letter
+ * (values, distribution, rack counts...) can be a plain array indexed by code.
+ * <p>
+ * The blank ' ' is always code {@link #BLANK}, the other letters get codes 1 to {@code size() - 1} in
+ * {@code char} order. Letters may be any {@code char}, accented or not: Latin-1 letters are encoded with a
+ * table lookup, others with a binary search.
+ * </p>
+ *
+ * @see Language
+ *
+ * @author agueguen
+ */
+public class Alphabet {
+
+    /** Code of the blank */
+    public static final int BLANK = 0;
+
+    private final char[] letters;
+    private final byte[] latinCodes = new byte[256];
+
+    /**
+     * Constructs an {@code Alphabet} with the given letters and the blank.
+     *
+     * @param letters the letters of the language, with or without the blank
+     * @throws IllegalArgumentException if there are more than 127 letters
+     */
+    public Alphabet(Collection<Character> letters) {
+        TreeSet<Character> sorted = new TreeSet<Character>(letters);
+        sorted.remove(' ');
+        if (sorted.size() >= Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many letters in alphabet: " + sorted.size());
+        }
+        this.letters = new char[sorted.size() + 1];
+        this.letters[BLANK] = ' ';
+        int code = 1;
+        for (char letter : sorted) {
+            this.letters[code++] = letter;
+        }
+        Arrays.fill(latinCodes, (byte) -1);
+        for (code = 0; code < this.letters.length; code++) {
+            if (this.letters[code] < 256) {
+                latinCodes[this.letters[code]] = (byte) code;
+            }
+        }
+    }
+
+    /**
+     * Returns the code of a letter.
+     *
+     * @param letter the letter, ' ' for the blank
+     * @return the code of the letter, or -1 if it isn't in the alphabet
+     */
+    public int encode(char letter) {
+        if (letter < 256) {
+            return latinCodes[letter];
+        }
+        int code = Arrays.binarySearch(letters, 1, letters.length, letter);
+        return code < 0 ? -1 : code;
+    }
+
+    /**
+     * Returns the codes of the letters of a word.
+     *
+     * @param word the word
+     * @return the code of each letter, -1 for letters that aren't in the alphabet
+     */
+    public byte[] encode(String word) {
+        byte[] codes = new byte[word.length()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (byte) encode(word.charAt(i));
+        }
+        return codes;
+    }
+
+    /**
+     * Returns the letter with the given code.
+     *
+     * @param code the code
+     * @return the letter, ' ' for the blank
+     */
+    public char decode(int code) {
+        return letters[code];
+    }
+
+    /**
+     * Returns the number of codes, blank included.
+     *
+     * @return the size of the alphabet
+     */
+    public int size() {
+        return letters.length;
+    }
+
+    /**
+     * Returns a string representation of the alphabet.
+     *
+     * @return the letters of the alphabet, blank excluded
+     */
+    @Override
+    public String toString() {
+        return new String(letters, 1, letters.length - 1);
+    }
+}
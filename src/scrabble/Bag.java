@@ -5,12 +5,14 @@
 package scrabble;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * The {@code Bag} class represents a bag of tiles in the Scrabble game.
  * It is responsible for holding the tiles and managing their distribution based on the specified language configuration.
  * <p>
  * The bag is initialized with tiles according to the letter distribution defined in the {@code Language} object.
+ * It holds references to the language's shared tiles, so filling a bag allocates no tile.
  * </p>
  * 
  * @see Language
@@ -22,6 +24,8 @@ import java.util.ArrayList;
 public class Bag {
 
     private ArrayList<Tile> bag = new ArrayList<Tile>();
+    // State of the SplitMix64 generator used to draw tiles, kept as a single long so it can be saved
+    private long rngState;
 
     /**
      * Constructs a {@code Bag} object and fills it with tiles based on the specified language configuration.
@@ -30,11 +34,64 @@ public class Bag {
      * @param language the {@code Language} object containing the distribution of letters
      */
     public Bag(Language language) {
-        language.getDistribution().forEach((letter, distr) -> {
-            for (int i = 0; i<distr; i++){
-                bag.add(new Tile(letter, language));
+        int[] distribution = language.getDistributionByCode();
+        for (int code = 0; code < distribution.length; code++) {
+            for (int i = 0; i<distribution[code]; i++){
+                bag.add(language.getTile(code));
             }
-        });
+        }
+        this.rngState = new Random().nextLong();
+    }
+
+    /**
+     * Constructs a {@code Bag} object holding the given tiles, with the random number generator in the given state.
+     * Used to restore a saved game.
+     * 
+     * @param tiles the tiles in the bag
+     * @param rngState the state of the random number generator, as returned by {@link #getRngState()}
+     */
+    public Bag(ArrayList<Tile> tiles, long rngState) {
+        this.bag = tiles;
+        this.rngState = rngState;
+    }
+
+    /**
+     * Removes a random tile from the bag and returns it.
+     * 
+     * @return the drawn tile
+     */
+    public Tile draw() {
+        Tile tile = bag.remove(nextIndex(bag.size()));
+        ScrabbleEvents.BagDraw event = new ScrabbleEvents.BagDraw();
+        if (event.shouldCommit()) {
+            event.letter = tile.getLetter();
+            event.tilesLeft = bag.size();
+            event.commit();
+        }
+        return tile;
+    }
+
+    /**
+     * Returns the current state of the random number generator used to draw tiles.
+     * 
+     * @return the state of the random number generator
+     */
+    public long getRngState() {
+        return rngState;
+    }
+
+    /**
+     * Returns a random index between 0 (inclusive) and bound (exclusive) using SplitMix64.
+     * 
+     * @param bound the upper bound
+     * @return the random index
+     */
+    private int nextIndex(int bound) {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) Math.floorMod(z, (long) bound);
     }
 
     /**
@@ -0,0 +1,193 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * The {@code BingoRacks} class knows which full racks can be played as a bingo, a word using all of their tiles.
+ * <p>
+ * A rack is a bingo rack when its letters, blanks standing for any letter, are the letters of a valid word as long as
+ * the rack. The racks are indexed by their number of blanks: for each, the sorted letters other than the blanks of every
+ * bingo rack, packed 6 bits per letter code into a long and kept in a sorted array. Checking a rack is then a binary
+ * search, and {@link UnseenTiles} can go through the bingo racks holding a given leave.
+ * </p>
+ *
+ * @see UnseenTiles
+ *
+ * @author agueguen
+ */
+public class BingoRacks {
+
+    /** Number of tiles on a full rack */
+    public static final int RACK_SIZE = 7;
+
+    private static final Map<ValidWords, BingoRacks> RACKS = Collections.synchronizedMap(new WeakHashMap<ValidWords, BingoRacks>());
+
+    private final Alphabet alphabet;
+    // Sorted packed letters of the bingo racks, by number of blanks on the rack
+    private final long[][] racks;
+
+    /**
+     * Returns the bingo racks of a word list, building them the first time they're asked for.
+     *
+     * @param validWords the valid words
+     * @param language the language of the words
+     * @return the bingo racks
+     * @throws IllegalArgumentException if the language has more than 63 letters
+     */
+    public static BingoRacks of(ValidWords validWords, Language language) {
+        synchronized (RACKS) {
+            return RACKS.computeIfAbsent(validWords, words -> new BingoRacks(words, language));
+        }
+    }
+
+    private BingoRacks(ValidWords validWords, Language language) {
+        this.alphabet = language.getAlphabet();
+        if (alphabet.size() > 64) {
+            throw new IllegalArgumentException("Bingo racks support up to 63 letters, " + language.getName() + " has " + (alphabet.size() - 1));
+        }
+        int blanks = Math.min(RACK_SIZE, language.getDistributionByCode()[Alphabet.BLANK]);
+        int[] codes = new int[RACK_SIZE];
+        // Copied onto the heap once when the words are off the heap
+        HashSet<String> words = validWords.getValidWords();
+        long[] full = new long[words.size()];
+        int count = 0;
+        for (String word : words) {
+            if (word.length() == RACK_SIZE && encode(word, codes)) {
+                Arrays.sort(codes);
+                full[count++] = pack(codes, 0, RACK_SIZE);
+            }
+        }
+        full = unique(full, count);
+        this.racks = new long[blanks + 1][];
+        racks[0] = full;
+        int[] subset = new int[RACK_SIZE];
+        for (int b = 1; b <= blanks; b++) {
+            // The racks with b blanks are the racks of letters a bingo rack keeps when b of its letters are removed
+            int[] masks = masks(RACK_SIZE - b);
+            long[] keys = new long[full.length * masks.length];
+            int keyCount = 0;
+            for (long rack : full) {
+                unpack(rack, RACK_SIZE, codes);
+                for (int mask : masks) {
+                    int size = 0;
+                    for (int i = 0; i < RACK_SIZE; i++) {
+                        if ((mask & (1 << i)) != 0) {
+                            subset[size++] = codes[i];
+                        }
+                    }
+                    keys[keyCount++] = pack(subset, 0, size);
+                }
+            }
+            racks[b] = unique(keys, keyCount);
+        }
+    }
+
+    /**
+     * Returns whether a full rack can be played as a bingo.
+     *
+     * @param codes the letter codes of the tiles of the rack, see {@link Tile#getCode()}
+     * @return true if the tiles are the letters of a valid word of {@value #RACK_SIZE} letters
+     */
+    public boolean isBingo(int[] codes) {
+        if (codes.length != RACK_SIZE) {
+            return false;
+        }
+        int[] sorted = codes.clone();
+        Arrays.sort(sorted);
+        int blanks = 0;
+        while (blanks < RACK_SIZE && sorted[blanks] == Alphabet.BLANK) {
+            blanks++;
+        }
+        return blanks < racks.length && Arrays.binarySearch(racks[blanks], pack(sorted, blanks, RACK_SIZE)) >= 0;
+    }
+
+    /**
+     * Returns the largest number of blanks on the racks indexed.
+     *
+     * @return the number of blanks of the language, at most {@value #RACK_SIZE}
+     */
+    public int getMaxBlanks() {
+        return racks.length - 1;
+    }
+
+    /**
+     * Returns the bingo racks with a given number of blanks, as their letters other than the blanks,
+     * sorted by code and packed by {@link #pack}.
+     *
+     * @param blanks the number of blanks
+     * @return the packed racks, sorted
+     */
+    long[] getRacks(int blanks) {
+        return racks[blanks];
+    }
+
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Packs letter codes 6 bits each, the first code in the lowest bits.
+     *
+     * @param codes the codes
+     * @param from the first code to pack (inclusive)
+     * @param to the last code to pack (exclusive)
+     * @return the packed codes
+     */
+    static long pack(int[] codes, int from, int to) {
+        long packed = 0;
+        for (int i = to - 1; i >= from; i--) {
+            packed = (packed << 6) | codes[i];
+        }
+        return packed;
+    }
+
+    /**
+     * Unpacks letter codes packed by {@link #pack}.
+     *
+     * @param packed the packed codes
+     * @param length the number of codes
+     * @param codes receives the codes
+     */
+    static void unpack(long packed, int length, int[] codes) {
+        for (int i = 0; i < length; i++) {
+            codes[i] = (int) (packed & 63);
+            packed >>>= 6;
+        }
+    }
+
+    private boolean encode(String word, int[] codes) {
+        for (int i = 0; i < word.length(); i++) {
+            codes[i] = alphabet.encode(word.charAt(i));
+            if (codes[i] <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] unique(long[] keys, int count) {
+        Arrays.sort(keys, 0, count);
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size == 0 || keys[i] != keys[size - 1]) {
+                keys[size++] = keys[i];
+            }
+        }
+        return Arrays.copyOf(keys, size);
+    }
+
+    /**
+     * Returns the masks of {@value #RACK_SIZE} bits with the given number of bits set.
+     */
+    private static int[] masks(int bits) {
+        return java.util.stream.IntStream.range(0, 1 << RACK_SIZE).filter(mask -> Integer.bitCount(mask) == bits).toArray();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.Collection;
+
+/**
+ * The {@code BloomFilter} class is a compact set of words answering "definitely not a word" or "maybe a word".
+ * It sits in front of the exact word set of {@link ValidWords} so that most invalid words are rejected
+ * without hashing and comparing them against the whole lexicon.
+ * <p>
+ * The filter is split-block: each word sets one bit in each of the 8 longs of a 512 bit block, the size of a cache line,
+ * so a lookup reads a single cache line and tests its 8 bits without branching. The false positive rate is tuned
+ * through the number of bits per word.
+ * </p>
+ *
+ * @see ValidWords
+ *
+ * @author agueguen
+ */
+public class BloomFilter {
+
+    private static final int BLOCK_LONGS = 8;
+    private static final int BLOCK_BITS = BLOCK_LONGS * 64;
+
+    private final long[] bits;
+    private final int blocks;
+
+    /**
+     * Constructs a {@code BloomFilter} holding the given words.
+     *
+     * @param words the words in the filter
+     * @param falsePositiveRate the target probability for a word not in the filter to be reported as maybe in it, e.g. 0.01
+     * @throws IllegalArgumentException if the rate isn't strictly between 0 and 1
+     */
+    public BloomFilter(Collection<String> words, double falsePositiveRate) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate should be between 0 and 1: " + falsePositiveRate);
+        }
+        this.blocks = (int) Math.max(1, Math.ceil(Math.max(1, words.size()) * bitsPerWord(falsePositiveRate) / BLOCK_BITS));
+        this.bits = new long[blocks * BLOCK_LONGS];
+        for (String word : words) {
+            long hash = hash(word);
+            int block = block(hash) * BLOCK_LONGS;
+            long probe = hash * 0x9E3779B97F4A7C15L;
+            for (int i = 0; i < BLOCK_LONGS; i++) {
+                bits[block + i] |= 1L << (probe >>> (6 * i));
+            }
+        }
+    }
+
+    /**
+     * Checks whether a word may be in the filter.
+     *
+     * @param word the word to check
+     * @return false if the word is definitely not in the filter, true if it may be
+     */
+    public boolean mightContain(String word) {
+        long hash = hash(word);
+        int block = block(hash) * BLOCK_LONGS;
+        // One bit per long of the block, the bit positions coming from a remix of the hash so they don't correlate with the block.
+        // All of them are tested without branching, a missing bit leaving a mark in missing
+        long probe = hash * 0x9E3779B97F4A7C15L;
+        long missing = 0;
+        for (int i = 0; i < BLOCK_LONGS; i++) {
+            missing |= ~bits[block + i] & (1L << (probe >>> (6 * i)));
+        }
+        return missing == 0;
+    }
+
+    /**
+     * Returns the number of bits per word needed to reach a false positive rate.
+     * Words are spread over blocks following a Poisson distribution, and a word not in the filter is a false positive
+     * when the 8 bits it tests in its block are set.
+     *
+     * @param falsePositiveRate the target false positive rate
+     * @return the number of bits per word
+     */
+    private static double bitsPerWord(double falsePositiveRate) {
+        double bitsPerWord = 4;
+        while (bitsPerWord < 64) {
+            double wordsPerBlock = BLOCK_BITS / bitsPerWord;
+            double rate = 0;
+            double poisson = Math.exp(-wordsPerBlock);
+            for (int i = 0; i < 4 * wordsPerBlock + 20; i++) {
+                rate += poisson * Math.pow(1 - Math.pow(63.0 / 64, i), BLOCK_LONGS);
+                poisson *= wordsPerBlock / (i + 1);
+            }
+            if (rate <= falsePositiveRate) {
+                break;
+            }
+            bitsPerWord += 0.5;
+        }
+        return bitsPerWord;
+    }
+
+    /**
+     * Returns the size of the filter.
+     *
+     * @return the number of bytes used by the bits of the filter
+     */
+    public long sizeInBytes() {
+        return bits.length * 8L;
+    }
+
+    /**
+     * Picks the block of a word from the high bits of its hash.
+     *
+     * @param hash the hash of the word
+     * @return the index of the block
+     */
+    private int block(long hash) {
+        return (int) (((hash >>> 40) * blocks) >>> 24);
+    }
+
+    /**
+     * Hashes a word to 64 bits by spreading {@link String#hashCode()} with the MurmurHash3 finalizer.
+     * Starting from {@code hashCode} means the hash is computed once and cached by the string,
+     * and reused by the exact lookup that follows when the word may be valid.
+     *
+     * @param word the word to hash
+     * @return the hash of the word
+     */
+    static long hash(String word) {
+        long h = word.hashCode() * 0x9E3779B97F4A7C15L + word.length();
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
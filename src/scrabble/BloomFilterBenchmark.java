@@ -0,0 +1,110 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+/**
+ * Compares word lookups in {@link ValidWords} with and without a {@link BloomFilter} in front,
+ * for several false positive rates and shares of invalid words.
+ * Invalid words are valid words with one letter changed, so they look like the candidates generated during analysis.
+ * <p>
+ * Usage: {@code java scrabble.BloomFilterBenchmark [language] [lookups]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class BloomFilterBenchmark {
+
+    /**
+     * @param args the language and the number of lookups per measure
+     */
+    public static void main(String[] args) {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+        ValidWords validWords = new ValidWords(language);
+        ArrayList<String> words = new ArrayList<String>(validWords.getValidWords());
+        String letters = language.getAlphabet().toString();
+        Random random = new Random(42);
+
+        // Near misses: valid words with one letter replaced, that aren't valid words themselves
+        ArrayList<String> misses = new ArrayList<String>();
+        while (misses.size() < 100_000) {
+            char[] word = words.get(random.nextInt(words.size())).toCharArray();
+            word[random.nextInt(word.length)] = letters.charAt(random.nextInt(letters.length()));
+            String miss = new String(word);
+            if (!validWords.getValidWords().contains(miss)) {
+                misses.add(miss);
+            }
+        }
+        System.out.printf("%d words, %d-letter alphabet%n", words.size(), letters.length());
+
+        for (double missRatio : new double[]{0.5, 0.9, 0.99}) {
+            String[] sample = sample(words, misses, missRatio, random);
+            validWords.disableBloomFilter();
+            measure(validWords, sample, lookups);
+            System.out.printf("miss ratio %.2f, no filter:      %5.1f ns per lookup%n", missRatio, measure(validWords, sample, lookups));
+            for (double falsePositiveRate : new double[]{0.05, 0.01, 0.001}) {
+                BloomFilter filter = validWords.enableBloomFilter(falsePositiveRate);
+                measure(validWords, sample, lookups);
+                double time = measure(validWords, sample, lookups);
+                int falsePositives = 0;
+                for (String miss : misses) {
+                    if (filter.mightContain(miss)) {
+                        falsePositives++;
+                    }
+                }
+                System.out.printf("miss ratio %.2f, filter p=%.3f: %5.1f ns per lookup (%d KiB, measured p=%.4f)%n",
+                        missRatio, falsePositiveRate, time, filter.sizeInBytes() / 1024, (double) falsePositives / misses.size());
+            }
+        }
+    }
+
+    /**
+     * Builds a shuffled sample of words with the given share of invalid words,
+     * large enough for lookups not to be served from a warm cache.
+     *
+     * @param words the valid words
+     * @param misses the invalid words
+     * @param missRatio the share of invalid words in the sample
+     * @param random the random number generator
+     * @return the sample
+     */
+    private static String[] sample(ArrayList<String> words, ArrayList<String> misses, double missRatio, Random random) {
+        ArrayList<String> sample = new ArrayList<String>();
+        for (int i = 0; i < 1 << 16; i++) {
+            String word = random.nextDouble() < missRatio ? misses.get(random.nextInt(misses.size())) : words.get(random.nextInt(words.size()));
+            sample.add(word);
+        }
+        Collections.shuffle(sample, random);
+        return sample.toArray(new String[0]);
+    }
+
+    /**
+     * Times lookups of the sample words.
+     *
+     * @param validWords the valid words to look the words up in
+     * @param sample the words to look up
+     * @param lookups the number of lookups
+     * @return the average time of a lookup in nanoseconds
+     */
+    private static double measure(ValidWords validWords, String[] sample, int lookups) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            // A copy per lookup so String.hashCode isn't cached from a previous round, like a freshly built candidate
+            if (validWords.contains(new String(sample[i & (sample.length - 1)]))) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (found < 0) {
+            System.out.println(found);
+        }
+        return (double) elapsed / lookups;
+    }
+}
@@ -1,12 +1,14 @@
 package scrabble;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Point;
-import java.util.HashSet;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import javax.swing.JPanel;
 
 /*
@@ -16,67 +18,432 @@ import javax.swing.JPanel;
 
 /**
  * The Board class represents the game board for Scrabble.
- * It is a 15x15 grid of squares, each of which may contain a tile.
+ * It is a square grid of squares, each of which may contain a tile, with the premiums of a {@link BoardLayout}:
+ * the classic 15x15 board by default, or a larger variant.
  * The board can display itself graphically.
+ * <p>
+ * Squares are numbered row by row (y * size + x) and kept in flat arrays, the tiles and the letters they show,
+ * so a larger board costs a longer array, not more objects.
+ * </p>
  * 
  * @author agueguen
  */
 public class Board extends JPanel {
     private static final long serialVersionUID = 7148504528535036003L;
-    
-    private ArrayList<ArrayList<Square>> board = new ArrayList<ArrayList<Square>>();
-    private int[][] classicBoard = {
-        {13, 1, 1, 2, 1, 1, 1, 13, 1, 1, 1, 2, 1, 1, 13},
-        {1, 12, 1, 1, 1, 3, 1, 1, 1, 3, 1, 1, 1, 12, 1},
-        {1, 1, 12, 1, 1, 1, 2, 1, 2, 1, 1, 1, 12, 1, 1},
-        {2, 1, 1, 12, 1, 1, 1, 2, 1, 1, 1, 12, 1, 1, 2},
-        {1, 1, 1, 1, 12, 1, 1, 1, 1, 1, 12, 1, 1, 1, 1},
-        {1, 3, 1, 1, 1, 3, 1, 1, 1, 3, 1, 1, 1, 3, 1},
-        {1, 1, 2, 1, 1, 1, 2, 1, 2, 1, 1, 1, 2, 1, 1},
-        {13, 1, 1, 2, 1, 1, 1, 12, 1, 1, 1, 2, 1, 1, 13},
-        {1, 1, 2, 1, 1, 1, 2, 1, 2, 1, 1, 1, 2, 1, 1},
-        {1, 3, 1, 1, 1, 3, 1, 1, 1, 3, 1, 1, 1, 3, 1},
-        {1, 1, 1, 1, 12, 1, 1, 1, 1, 1, 12, 1, 1, 1, 1},
-        {2, 1, 1, 12, 1, 1, 1, 2, 1, 1, 1, 12, 1, 1, 2},
-        {1, 1, 12, 1, 1, 1, 2, 1, 2, 1, 1, 1, 12, 1, 1},
-        {1, 12, 1, 1, 1, 3, 1, 1, 1, 3, 1, 1, 1, 12, 1},
-        {13, 1, 1, 2, 1, 1, 1, 13, 1, 1, 1, 2, 1, 1, 13},
-    };
+
+    private static final int TOP_LEFT = 1;
+    private static final Color TILE_COLOR = Color.getHSBColor(47, 48, 98);
+
+    // A board is never serialized, it is saved as a position (see toPosition()) or in a GameSnapshot
+    @SuppressWarnings("serial")
+    private final BoardLayout layout;
+    private final int size;
+    private final int center;
+    // Tiles and the letters they show (for a blank, the letter it stands for), numbered row by row
+    @SuppressWarnings("serial")
+    private final Tile[] squareTiles;
+    private final char[] letters;
+
+    // Occupied squares and anchors (empty squares next to a tile, or the center of an empty board) as bitboards,
+    // bit y * size + x in the row-major sets and bit x * size + y in the transposed ones, so both rows and columns are contiguous
+    private final int words;
+    private final long[] notFirstColumn;
+    private final long[] notLastColumn;
+    private final long[] allSquares;
+    private final long[] occupied;
+    private final long[] occupiedColumns;
+    private final long[] anchors;
+    private final long[] anchorColumns;
+    private int tiles = 0;
+    // Zobrist hash of the tiles on the board, updated as tiles are placed, see getPositionHash()
+    private long positionHash = 0;
+
+    // Rendering caches, rebuilt only when the square length changes
+    private transient BufferedImage premiumLayer;
+    private transient Font tileFont;
+    private transient FontMetrics tileMetrics;
+    private int cachedSquareLength = -1;
+
+    // Squares modified since the last call to repaintDirtySquares, as (x, y) points
+    private final ArrayList<Point> dirtySquares = new ArrayList<Point>();
 
     /**
      * Constructs a new Board and initializes it with the classic Scrabble layout.
      */
-    public Board() {   
-        for (int[] row : classicBoard) {
-            ArrayList<Square> rowSquare = new ArrayList<Square>();
-            for (int sq : row) {
-                rowSquare.add(new Square(sq % 10, sq / 10 == 1));
+    public Board() {
+        this(BoardLayout.CLASSIC);
+    }
+
+    /**
+     * Constructs a new empty Board with the given layout.
+     * 
+     * @param layout the size and premium squares of the board
+     */
+    public Board(BoardLayout layout) {
+        this.layout = layout;
+        this.size = layout.getSize();
+        this.center = layout.getCenter();
+        this.squareTiles = new Tile[size * size];
+        this.letters = new char[size * size];
+        this.words = (size * size + 63) / 64;
+        this.notFirstColumn = new long[words];
+        this.notLastColumn = new long[words];
+        this.allSquares = new long[words];
+        for (int square = 0; square < size * size; square++) {
+            set(allSquares, square);
+            if (square % size != 0) {
+                set(notFirstColumn, square);
+            }
+            if (square % size != size - 1) {
+                set(notLastColumn, square);
             }
-            this.board.add(rowSquare);
         }
+        this.occupied = new long[words];
+        this.occupiedColumns = new long[words];
+        this.anchors = new long[words];
+        this.anchorColumns = new long[words];
+        updateAnchors();
     }
 
     /**
-     * Returns a string representation of the board.
+     * Constructs a copy of the position on a board: its tiles, the letters they show, occupancy and anchors.
+     * The copy isn't displayed and doesn't change with the board it was copied from.
+     * 
+     * @param board the board to copy
+     */
+    public Board(Board board) {
+        this(board.layout);
+        System.arraycopy(board.squareTiles, 0, squareTiles, 0, squareTiles.length);
+        System.arraycopy(board.letters, 0, letters, 0, letters.length);
+        System.arraycopy(board.occupied, 0, occupied, 0, words);
+        System.arraycopy(board.occupiedColumns, 0, occupiedColumns, 0, words);
+        System.arraycopy(board.anchors, 0, anchors, 0, words);
+        System.arraycopy(board.anchorColumns, 0, anchorColumns, 0, words);
+        this.tiles = board.tiles;
+        this.positionHash = board.positionHash;
+    }
+
+    /**
+     * Returns a string representation of the board: the premiums of each square, "l" or "w" followed by the multiplier.
      * 
      * @return the string representation of the board
      */
     @Override
     public String toString() {
-        String str = "Board{\n";
-        for (ArrayList<Square> row : this.board) {
-            str += row.toString() + "\n";
+        StringBuilder str = new StringBuilder("Board{\n");
+        for (int y = 0; y < size; y++) {
+            str.append('[');
+            for (int x = 0; x < size; x++) {
+                int square = y * size + x;
+                str.append(x == 0 ? "" : ", ").append(getWordMultiplier(square) > 1 ? "w" + getWordMultiplier(square) : "l" + getLetterMultiplier(square));
+            }
+            str.append("]\n");
         }
-        return str + "}";
+        return str.append('}').toString();
+    }
+
+    /**
+     * Returns the layout of the board.
+     * 
+     * @return the layout
+     */
+    public BoardLayout getBoardLayout() {
+        return layout;
     }
 
     /**
-     * Returns the 2D list representing the board.
+     * Returns the number of squares on each side of the board.
      * 
-     * @return the 2D list of squares
+     * @return the size of the board
      */
-    public ArrayList<ArrayList<Square>> getBoard() {
-        return board;
+    public int getBoardSize() {
+        return size;
+    }
+
+    /**
+     * Returns the square the first word must cover.
+     * 
+     * @return the index of the start square
+     */
+    public int getCenter() {
+        return center;
+    }
+
+    /**
+     * Returns the tile on the square with the given index, numbering squares row by row (y * size + x).
+     * 
+     * @param square the index of the square
+     * @return the tile on the square, or null if there is no tile
+     */
+    public Tile getTile(int square) {
+        return squareTiles[square];
+    }
+
+    /**
+     * Returns the letter on the square with the given index, which for a blank is the letter it stands for.
+     * 
+     * @param square the index of the square
+     * @return the letter on the square, or '\0' if there is no tile
+     */
+    public char getLetter(int square) {
+        return letters[square];
+    }
+
+    /**
+     * Returns the factor applied to the value of a tile placed on the square with the given index.
+     * 
+     * @param square the index of the square
+     * @return the letter multiplier, 1 on word multiplier squares
+     */
+    public int getLetterMultiplier(int square) {
+        return layout.getLetterMultiplier(square);
+    }
+
+    /**
+     * Returns the factor applied to a word covering the square with the given index, if a tile is placed on it.
+     * 
+     * @param square the index of the square
+     * @return the word multiplier, 1 on letter multiplier squares
+     */
+    public int getWordMultiplier(int square) {
+        return layout.getWordMultiplier(square);
+    }
+
+    /**
+     * Returns whether there is a tile on the square with the given index.
+     * 
+     * @param square the index of the square
+     * @return true if the square holds a tile
+     */
+    public boolean isOccupied(int square) {
+        return get(occupied, square);
+    }
+
+    /**
+     * Returns whether there is no tile on the board.
+     * 
+     * @return true if the board is empty
+     */
+    public boolean isEmpty() {
+        return tiles == 0;
+    }
+
+    /**
+     * Returns the occupied squares of a row, bit x being set if the square (x, y) holds a tile.
+     * 
+     * @param y the row
+     * @return the occupancy of the row
+     */
+    public int getRowOccupancy(int y) {
+        return line(occupied, y);
+    }
+
+    /**
+     * Returns the occupied squares of a column, bit y being set if the square (x, y) holds a tile.
+     * 
+     * @param x the column
+     * @return the occupancy of the column
+     */
+    public int getColumnOccupancy(int x) {
+        return line(occupiedColumns, x);
+    }
+
+    /**
+     * Returns the anchors of a row, bit x being set if the square (x, y) is an anchor.
+     * Anchors are the empty squares next to a tile, where a new word must put a tile; on an empty board, the center.
+     * 
+     * @param y the row
+     * @return the anchors of the row
+     */
+    public int getRowAnchors(int y) {
+        return line(anchors, y);
+    }
+
+    /**
+     * Returns the anchors of a column, bit y being set if the square (x, y) is an anchor, see {@link #getRowAnchors(int)}.
+     * 
+     * @param x the column
+     * @return the anchors of the column
+     */
+    public int getColumnAnchors(int x) {
+        return line(anchorColumns, x);
+    }
+
+    /**
+     * Returns whether a word placed at the given coordinates would be connected to the tiles of the board:
+     * it covers a tile, an anchor, or the center square. The word must fit on the board.
+     * 
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param length the length of the word
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @return true if the word is connected
+     */
+    public boolean connects(int x, int y, int length, boolean directionIsDown) {
+        int line = directionIsDown ? getColumnOccupancy(x) | getColumnAnchors(x) : getRowOccupancy(y) | getRowAnchors(y);
+        if ((directionIsDown ? x : y) == (directionIsDown ? center % size : center / size)) {
+            line |= 1 << (directionIsDown ? center / size : center % size);
+        }
+        int word = ((1 << length) - 1) << (directionIsDown ? y : x);
+        return (line & word) != 0;
+    }
+
+    /**
+     * Places a tile on the square at the given coordinates and marks that square as dirty,
+     * so that only it is redrawn by the next call to {@link #repaintDirtySquares()}.
+     * 
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @param tile the tile to place
+     * @param letter the letter shown by the tile, which for a blank is the letter it stands for
+     */
+    public void placeTile(int x, int y, Tile tile, char letter) {
+        int square = y * size + x;
+        boolean wasOccupied = squareTiles[square] != null;
+        setSquare(square, tile, letter);
+        if (tile == null || wasOccupied) {
+            updateOccupancy(x, y, tile != null);
+            updateAnchors();
+        } else {
+            occupy(x, y);
+        }
+        // A board that isn't shown (e.g. offscreen rendering) never gets its dirty squares repainted
+        if (isDisplayable()) {
+            synchronized (dirtySquares) {
+                dirtySquares.add(new Point(x, y));
+            }
+        }
+    }
+
+    /**
+     * Removes every tile from the board.
+     */
+    public void clear() {
+        Arrays.fill(squareTiles, null);
+        Arrays.fill(letters, '\0');
+        positionHash = 0;
+        for (int i = 0; i < words; i++) {
+            occupied[i] = 0;
+            occupiedColumns[i] = 0;
+        }
+        tiles = 0;
+        updateAnchors();
+        repaint();
+    }
+
+    /**
+     * Replaces the contents of the board with the given position.
+     * A position is made of one row per line of the board separated by '/', each with one character per square,
+     * where '.' is an empty square, an uppercase letter a tile and a lowercase letter a blank used as that letter.
+     * 
+     * @param position the position to load
+     * @param language the language giving the tiles their values
+     * @throws IllegalArgumentException if the position doesn't have the size of the board
+     */
+    public void loadPosition(String position, Language language) {
+        String[] rows = position.split("/");
+        if (rows.length != size) {
+            throw new IllegalArgumentException("Position should have " + size + " rows: " + position);
+        }
+        for (int i = 0; i < size; i++) {
+            if (rows[i].length() != size) {
+                throw new IllegalArgumentException("Row " + i + " should have " + size + " squares: " + rows[i]);
+            }
+            for (int j = 0; j < size; j++) {
+                char c = rows[i].charAt(j);
+                int square = i * size + j;
+                if (c == '.') {
+                    setSquare(square, null, '\0');
+                } else if (Character.isLowerCase(c)) {
+                    setSquare(square, language.getTile(' '), Character.toUpperCase(c));
+                } else {
+                    setSquare(square, language.getTile(c), c);
+                }
+                updateOccupancy(j, i, c != '.');
+            }
+        }
+        updateAnchors();
+        repaint();
+    }
+
+    /**
+     * Returns the position currently on the board, in the format read by {@link #loadPosition(String, Language)}.
+     * 
+     * @return the position on the board
+     */
+    public String toPosition() {
+        StringBuilder position = new StringBuilder(size * (size + 1));
+        for (int square = 0; square < size * size; square++) {
+            if (square > 0 && square % size == 0) {
+                position.append('/');
+            }
+            Tile tile = squareTiles[square];
+            if (tile == null) {
+                position.append('.');
+            } else if (tile.isBlank()) {
+                position.append(Character.toLowerCase(letters[square]));
+            } else {
+                position.append(letters[square]);
+            }
+        }
+        return position.toString();
+    }
+
+    /**
+     * Returns a hash of the position on the board: the tiles, the letters they show and whether they're blanks.
+     * It's updated as tiles are placed, so it costs nothing to get, and equal positions have equal hashes,
+     * the same from one run to the next.
+     * 
+     * @return the hash of the position
+     */
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * Puts a tile on a square, or removes it, keeping the hash of the position up to date.
+     * 
+     * @param square the index of the square
+     * @param tile the tile, or null to empty the square
+     * @param letter the letter shown by the tile
+     */
+    private void setSquare(int square, Tile tile, char letter) {
+        if (squareTiles[square] != null) {
+            positionHash ^= squareHash(square, squareTiles[square], letters[square]);
+        }
+        squareTiles[square] = tile;
+        letters[square] = tile == null ? '\0' : letter;
+        if (tile != null) {
+            positionHash ^= squareHash(square, tile, letter);
+        }
+    }
+
+    /**
+     * Returns the Zobrist key of a tile on a square: a fixed random-looking number, mixed from the square,
+     * the letter and whether the tile is a blank instead of drawn from a table, so it never changes.
+     */
+    private static long squareHash(int square, Tile tile, char letter) {
+        long h = ((long) square << 17 | (long) letter << 1 | (tile.isBlank() ? 1 : 0)) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        h *= 0x94D049BB133111EBL;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * Requests a repaint of the squares changed since the last call, instead of the whole panel.
+     * Safe to call from any thread.
+     */
+    public void repaintDirtySquares() {
+        int squareLength = getHeight() / size;
+        int offset = (getWidth() - getHeight()) / 2;
+        synchronized (dirtySquares) {
+            for (Point square : dirtySquares) {
+                repaint(TOP_LEFT + offset + squareLength * square.x, TOP_LEFT + squareLength * square.y, squareLength, squareLength);
+            }
+            dirtySquares.clear();
+        }
     }
 
     /**
@@ -89,9 +456,8 @@ public class Board extends JPanel {
     public String getLeftWord(int x, int y) {
         String word = "";
         int i = x - 1;
-        Square left;
-        while (i >= 0 && (left = board.get(y).get(i)).getTile() != null) {
-            word = left.getTile().getLetter() + word;
+        while (i >= 0 && squareTiles[y * size + i] != null) {
+            word = letters[y * size + i] + word;
             i--;
         }
         return word;
@@ -107,9 +473,8 @@ public class Board extends JPanel {
     public String getRightWord(int x, int y) {
         String word = "";
         int i = x + 1;
-        Square right;
-        while (i <= 14 && (right = board.get(y).get(i)).getTile() != null) {
-            word += right.getTile().getLetter();
+        while (i < size && squareTiles[y * size + i] != null) {
+            word += letters[y * size + i];
             i++;
         }
         return word;
@@ -125,9 +490,8 @@ public class Board extends JPanel {
     public String getUpWord(int x, int y) {
         String word = "";
         int i = y - 1;
-        Square up;
-        while (i >= 0 && (up = board.get(i).get(x)).getTile() != null) {
-            word = up.getTile().getLetter() + word;
+        while (i >= 0 && squareTiles[i * size + x] != null) {
+            word = letters[i * size + x] + word;
             i--;
         }
         return word;
@@ -143,9 +507,8 @@ public class Board extends JPanel {
     public String getDownWord(int x, int y) {
         String word = "";
         int i = y + 1;
-        Square down;
-        while (i <= 14 && (down = board.get(i).get(x)).getTile() != null) {
-            word += down.getTile().getLetter();
+        while (i < size && squareTiles[i * size + x] != null) {
+            word += letters[i * size + x];
             i++;
         }
         return word;
@@ -161,9 +524,8 @@ public class Board extends JPanel {
     public ArrayList<Tile> getLeftTiles(int x, int y) {
         ArrayList<Tile> word = new ArrayList<Tile>();
         int i = x - 1;
-        Square left;
-        while (i >= 0 && (left = board.get(y).get(i)).getTile() != null) {
-            word.addFirst(left.getTile());
+        while (i >= 0 && squareTiles[y * size + i] != null) {
+            word.addFirst(squareTiles[y * size + i]);
             i--;
         }
         return word;
@@ -179,9 +541,8 @@ public class Board extends JPanel {
     public ArrayList<Tile> getRightTiles(int x, int y) {
         ArrayList<Tile> word = new ArrayList<Tile>();
         int i = x + 1;
-        Square right;
-        while (i <= 14 && (right = board.get(y).get(i)).getTile() != null) {
-            word.addLast(right.getTile());
+        while (i < size && squareTiles[y * size + i] != null) {
+            word.addLast(squareTiles[y * size + i]);
             i++;
         }
         return word;
@@ -197,9 +558,8 @@ public class Board extends JPanel {
     public ArrayList<Tile> getUpTiles(int x, int y) {
         ArrayList<Tile> word = new ArrayList<Tile>();
         int i = y - 1;
-        Square up;
-        while (i >= 0 && (up = board.get(i).get(x)).getTile() != null) {
-            word.addFirst(up.getTile());
+        while (i >= 0 && squareTiles[i * size + x] != null) {
+            word.addFirst(squareTiles[i * size + x]);
             i--;
         }
         return word;
@@ -215,66 +575,282 @@ public class Board extends JPanel {
     public ArrayList<Tile> getDownTiles(int x, int y) {
         ArrayList<Tile> word = new ArrayList<Tile>();
         int i = y + 1;
-        Square down;
-        while (i <= 14 && (down = board.get(i).get(x)).getTile() != null) {
-            word.addLast(down.getTile());
+        while (i < size && squareTiles[i * size + x] != null) {
+            word.addLast(squareTiles[i * size + x]);
             i++;
         }
         return word;
     }    
     
+    /**
+     * Marks a newly occupied square in the bitboards, and updates the anchors around it.
+     * 
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    private void occupy(int x, int y) {
+        boolean first = tiles == 0;
+        updateOccupancy(x, y, true);
+        if (first) {
+            clear(anchors, center);
+            clear(anchorColumns, (center % size) * size + center / size);
+        }
+        clear(anchors, y * size + x);
+        clear(anchorColumns, x * size + y);
+        int[][] neighbors = {{x - 1, y}, {x + 1, y}, {x, y - 1}, {x, y + 1}};
+        for (int[] neighbor : neighbors) {
+            int nx = neighbor[0];
+            int ny = neighbor[1];
+            if (nx >= 0 && nx < size && ny >= 0 && ny < size && !get(occupied, ny * size + nx)) {
+                set(anchors, ny * size + nx);
+                set(anchorColumns, nx * size + ny);
+            }
+        }
+    }
+
+    /**
+     * Sets or clears a square in both occupancy bitboards.
+     */
+    private void updateOccupancy(int x, int y, boolean isOccupied) {
+        if (get(occupied, y * size + x) == isOccupied) {
+            return;
+        }
+        if (isOccupied) {
+            set(occupied, y * size + x);
+            set(occupiedColumns, x * size + y);
+            tiles++;
+        } else {
+            clear(occupied, y * size + x);
+            clear(occupiedColumns, x * size + y);
+            tiles--;
+        }
+    }
+
+    /**
+     * Recomputes both anchor bitboards from the occupancy: the squares next to a tile are the occupancy shifted by one
+     * square left, right, up and down, masked so rows don't wrap around, minus the occupied squares.
+     */
+    private void updateAnchors() {
+        neighbors(occupied, anchors);
+        neighbors(occupiedColumns, anchorColumns);
+        if (tiles == 0) {
+            set(anchors, center);
+            set(anchorColumns, (center % size) * size + center / size);
+        }
+    }
+
+    /**
+     * Computes the empty squares next to the occupied ones.
+     * 
+     * @param occupancy the occupied squares
+     * @param result receives the empty neighbors
+     */
+    private void neighbors(long[] occupancy, long[] result) {
+        long[] shifted = new long[words];
+        for (int i = 0; i < words; i++) {
+            result[i] = 0;
+        }
+        shiftUp(occupancy, 1, shifted);
+        or(result, shifted, notFirstColumn);
+        shiftDown(occupancy, 1, shifted);
+        or(result, shifted, notLastColumn);
+        shiftUp(occupancy, size, shifted);
+        or(result, shifted, allSquares);
+        shiftDown(occupancy, size, shifted);
+        or(result, shifted, allSquares);
+        for (int i = 0; i < words; i++) {
+            result[i] &= ~occupancy[i];
+        }
+    }
+
+    /** Shifts a bitboard towards higher squares by n bits, n < 64. */
+    private void shiftUp(long[] bits, int n, long[] result) {
+        for (int i = words - 1; i >= 0; i--) {
+            result[i] = (bits[i] << n) | (i > 0 ? bits[i - 1] >>> (64 - n) : 0);
+        }
+    }
+
+    /** Shifts a bitboard towards lower squares by n bits, n < 64. */
+    private void shiftDown(long[] bits, int n, long[] result) {
+        for (int i = 0; i < words; i++) {
+            result[i] = (bits[i] >>> n) | (i < words - 1 ? bits[i + 1] << (64 - n) : 0);
+        }
+    }
+
+    private void or(long[] result, long[] bits, long[] mask) {
+        for (int i = 0; i < words; i++) {
+            result[i] |= bits[i] & mask[i];
+        }
+    }
+
+    /**
+     * Extracts the bits of a row (or of a column, from a transposed bitboard).
+     */
+    private int line(long[] bits, int line) {
+        int from = line * size;
+        int word = from >>> 6;
+        int shift = from & 63;
+        long value = bits[word] >>> shift;
+        if (shift > 64 - size && word + 1 < words) {
+            value |= bits[word + 1] << (64 - shift);
+        }
+        return (int) value & ((1 << size) - 1);
+    }
+
+    private static boolean get(long[] bits, int square) {
+        return (bits[square >>> 6] & (1L << square)) != 0;
+    }
+
+    private static void set(long[] bits, int square) {
+        bits[square >>> 6] |= 1L << square;
+    }
+
+    private static void clear(long[] bits, int square) {
+        bits[square >>> 6] &= ~(1L << square);
+    }
+
     /**
      * Visual App to see the board
      * Called by the runtime system whenever the panel needs painting.
+     * The premium squares are blitted from a cached image, then only the occupied squares
+     * intersecting the clip are drawn on top of it.
      * 
      * @param g the Graphics context in which to paint
      */
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        paintBoard(g, getWidth(), getHeight());
+    }
+
+    /**
+     * Draws the board into an area of the given size, without the panel background.
+     * Used both by {@link #paintComponent(Graphics)} and to render the board offscreen.
+     * 
+     * @param g the Graphics context in which to paint
+     * @param width the width of the area to paint
+     * @param height the height of the area to paint
+     */
+    public void paintBoard(Graphics g, int width, int height) {
+        var squareLength = height / size;
+        var offset = (width - height) / 2;
+        if (squareLength <= 0) {
+            return;
+        }
+        ScrabbleEvents.Repaint event = new ScrabbleEvents.Repaint();
+        event.begin();
+        boolean cacheRebuilt = squareLength != cachedSquareLength;
+        updateRenderCache(g, squareLength);
 
-        var topRight = new Point(1, 1);
-        var squareLength = getHeight() / 15;
-        var offset = (getWidth() - getHeight()) / 2;
+        g.drawImage(premiumLayer, TOP_LEFT + offset, TOP_LEFT, null);
 
-        // Calculate the font size based on the square length
-        int fontSize = (int) (squareLength * 0.75);
-        g.setFont(new Font("Arial", Font.BOLD, fontSize));
-
-        // Get FontMetrics to measure the size of the string
-        FontMetrics metrics = g.getFontMetrics();
-
-        for (int i = 0; i < 15; i++) {
-            ArrayList<Square> row = board.get(i);
-            for (int j = 0; j < 15; j++) {
-                // Draw the squares
-                g.setColor(Color.WHITE);
-                g.fillRect(topRight.x + offset + squareLength * j, topRight.y + squareLength * i, squareLength, squareLength);
-                g.setColor(row.get(j).getSquareColor());
-                g.fillRect(topRight.x + 1 + offset + squareLength * j, topRight.y + 1 + squareLength * i, squareLength - 2, squareLength - 2);
-                
-                // Draw the letter centered in the square
-                try {
-                    Tile tile = board.get(i).get(j).getTile();
-                    String letter = tile.getLetter().toString();
-                    
-                    g.setColor(Color.getHSBColor(47, 48, 98));
-                    g.fillRect(topRight.x + 3 + offset + squareLength * j, topRight.y + 3 + squareLength * i, squareLength - 6, squareLength - 6);
-                    
-                    int stringWidth = metrics.stringWidth(letter);
-                    int stringHeight = metrics.getHeight();
-
-                    // Calculate x and y coordinates to center the text
-                    int x = topRight.x + offset + squareLength * j + (squareLength - stringWidth) / 2;
-                    int y = topRight.y + squareLength * i + (squareLength + stringHeight) / 2 - metrics.getDescent();
-
-                    g.setColor(Color.BLACK);
-                    g.drawString(letter, x, y);
-                    
-                } catch (NullPointerException e) {
-                    // Handle the case where there is no tile gracefully
+        // Only visit the rows and columns the clip actually covers
+        int firstRow = 0, lastRow = size - 1, firstColumn = 0, lastColumn = size - 1;
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            firstColumn = Math.max(0, (clip.x - TOP_LEFT - offset) / squareLength);
+            lastColumn = Math.min(size - 1, (clip.x + clip.width - TOP_LEFT - offset) / squareLength);
+            firstRow = Math.max(0, (clip.y - TOP_LEFT) / squareLength);
+            lastRow = Math.min(size - 1, (clip.y + clip.height - TOP_LEFT) / squareLength);
+        }
+
+        g.setFont(tileFont);
+        int tiles = 0;
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstColumn; j <= lastColumn; j++) {
+                int square = i * size + j;
+                if (squareTiles[square] != null) {
+                    paintTile(g, letters[square], TOP_LEFT + offset + squareLength * j, TOP_LEFT + squareLength * i, squareLength);
+                    tiles++;
                 }
             }
         }
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = width;
+            event.height = height;
+            event.squares = Math.max(0, lastRow - firstRow + 1) * Math.max(0, lastColumn - firstColumn + 1);
+            event.tiles = tiles;
+            event.cacheRebuilt = cacheRebuilt;
+            event.commit();
+        }
+    }
+
+    /**
+     * Rebuilds the premium square layer and the tile font if the square length has changed since the last paint.
+     * 
+     * @param g the Graphics context used to measure the font
+     * @param squareLength the side of a square in pixels
+     */
+    private void updateRenderCache(Graphics g, int squareLength) {
+        if (squareLength == cachedSquareLength) {
+            return;
+        }
+        premiumLayer = new BufferedImage(squareLength * size, squareLength * size, BufferedImage.TYPE_INT_ARGB);
+        Graphics layer = premiumLayer.createGraphics();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                int square = i * size + j;
+                layer.setColor(Color.WHITE);
+                layer.fillRect(squareLength * j, squareLength * i, squareLength, squareLength);
+                layer.setColor(getSquareColor(getLetterMultiplier(square), getWordMultiplier(square)));
+                layer.fillRect(1 + squareLength * j, 1 + squareLength * i, squareLength - 2, squareLength - 2);
+            }
+        }
+        layer.dispose();
+
+        // Calculate the font size based on the square length
+        tileFont = new Font("Arial", Font.BOLD, (int) (squareLength * 0.75));
+        tileMetrics = g.getFontMetrics(tileFont);
+        cachedSquareLength = squareLength;
+    }
+
+    /**
+     * Returns the color of a square with the given premiums.
+     * 
+     * @param letterMultiplier the letter multiplier of the square, 1 if none
+     * @param wordMultiplier the word multiplier of the square, 1 if none
+     * @return the color of the square
+     */
+    private static Color getSquareColor(int letterMultiplier, int wordMultiplier) {
+        if (wordMultiplier > 1) {
+            if (wordMultiplier == 2) {
+                return Color.ORANGE;
+            } else if (wordMultiplier == 3) {
+                return Color.RED;
+            }
+            return Color.MAGENTA.darker();
+        }
+        if (letterMultiplier == 1) {
+            return Color.GREEN.darker();
+        } else if (letterMultiplier == 2) {
+            return Color.CYAN;
+        } else if (letterMultiplier == 3) {
+            return Color.BLUE;
+        }
+        return Color.BLUE.darker().darker();
+    }
+
+    /**
+     * Draws a tile with its letter centered in the square whose top left corner is at the given pixel coordinates.
+     * 
+     * @param g the Graphics context in which to paint
+     * @param tileLetter the letter shown by the tile
+     * @param left the x pixel coordinate of the square
+     * @param top the y pixel coordinate of the square
+     * @param squareLength the side of a square in pixels
+     */
+    private void paintTile(Graphics g, char tileLetter, int left, int top, int squareLength) {
+        String letter = String.valueOf(tileLetter);
+
+        g.setColor(TILE_COLOR);
+        g.fillRect(left + 3, top + 3, squareLength - 6, squareLength - 6);
+
+        // Calculate x and y coordinates to center the text
+        int x = left + (squareLength - tileMetrics.stringWidth(letter)) / 2;
+        int y = top + (squareLength + tileMetrics.getHeight()) / 2 - tileMetrics.getDescent();
+
+        g.setColor(Color.BLACK);
+        g.drawString(letter, x, y);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Measures how many board images per second {@link BoardImageExporter} writes,
+ * with one thread and with one thread per processor.
+ * <p>
+ * Usage: {@code java -Djava.awt.headless=true scrabble.BoardImageExportBenchmark [language] [positions] [imageSize]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class BoardImageExportBenchmark {
+
+    /**
+     * @param args the language, the number of positions and the size of the images
+     * @throws IOException if the images can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int imageSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+
+        ArrayList<String> positions = randomPositions(language, count, new Random(42));
+        Path outputDirectory = Files.createTempDirectory("scrabble-export");
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        // First run warms up the JIT and the image writers
+        new BoardImageExporter(language, imageSize, processors).export(positions.stream().limit(200), outputDirectory);
+        for (int threads : processors > 1 ? new int[]{1, processors} : new int[]{1}) {
+            BoardImageExporter exporter = new BoardImageExporter(language, imageSize, threads);
+            long start = System.nanoTime();
+            int written = exporter.export(positions.stream(), outputDirectory);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d thread(s): %d images in %.2f s, %.0f images/s%n", threads, written, seconds, written / seconds);
+        }
+        System.out.println("Images written to " + outputDirectory);
+    }
+
+    /**
+     * Generates positions with a random number of random tiles, from an empty board to a full one.
+     *
+     * @param language the language to take the letters from
+     * @param count the number of positions
+     * @param random the random number generator
+     * @return the positions
+     */
+    private static ArrayList<String> randomPositions(Language language, int count, Random random) {
+        ArrayList<Character> letters = new ArrayList<Character>(language.getValues().keySet());
+        letters.remove(Character.valueOf(' '));
+        ArrayList<String> positions = new ArrayList<String>(count);
+        for (int p = 0; p < count; p++) {
+            double density = random.nextDouble();
+            StringBuilder position = new StringBuilder();
+            for (int i = 0; i < 15; i++) {
+                if (i > 0) {
+                    position.append('/');
+                }
+                for (int j = 0; j < 15; j++) {
+                    position.append(random.nextDouble() < density ? letters.get(random.nextInt(letters.size())) : '.');
+                }
+            }
+            positions.add(position.toString());
+        }
+        return positions;
+    }
+}
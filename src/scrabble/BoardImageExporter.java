@@ -0,0 +1,233 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import javax.imageio.ImageIO;
+
+/**
+ * The {@code BoardImageExporter} class renders board positions to PNG images without a display.
+ * It draws with the same logic as the Scrabble window ({@link Board#paintBoard}), each worker thread
+ * reusing its own offscreen {@code Board} so the premium layer and font are only built once per thread.
+ * <p>
+ * Positions use the format of {@link Board#toPosition()}. The JVM should be started with
+ * {@code -Djava.awt.headless=true} when no display is available.
+ * </p>
+ *
+ * @see Board
+ *
+ * @author agueguen
+ */
+public class BoardImageExporter {
+
+    private static final int BATCH_SIZE = 64;
+
+    private final Language language;
+    private final BoardLayout layout;
+    private final int imageSize;
+    private final int threads;
+    private final ThreadLocal<Board> boards;
+
+    /**
+     * Constructs a {@code BoardImageExporter} producing square images of the given size, of classic boards.
+     *
+     * @param language the language giving the tiles their values
+     * @param imageSize the width and height of the images in pixels
+     * @param threads the number of threads rendering in parallel
+     */
+    public BoardImageExporter(Language language, int imageSize, int threads) {
+        this(language, BoardLayout.CLASSIC, imageSize, threads);
+    }
+
+    /**
+     * Constructs a {@code BoardImageExporter} producing square images of the given size, of boards with the given layout.
+     *
+     * @param language the language giving the tiles their values
+     * @param layout the layout of the boards of the positions
+     * @param imageSize the width and height of the images in pixels
+     * @param threads the number of threads rendering in parallel
+     */
+    public BoardImageExporter(Language language, BoardLayout layout, int imageSize, int threads) {
+        this.language = language;
+        this.layout = layout;
+        this.imageSize = imageSize;
+        this.threads = threads;
+        this.boards = ThreadLocal.withInitial(() -> new Board(layout));
+    }
+
+    /**
+     * Renders a position to an image.
+     *
+     * @param position the position to render
+     * @return the rendered image
+     */
+    public BufferedImage render(String position) {
+        Board board = boards.get();
+        board.loadPosition(position, language);
+        BufferedImage image = new BufferedImage(imageSize, imageSize, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.GREEN.darker().darker());
+        g.fillRect(0, 0, imageSize, imageSize);
+        board.paintBoard(g, imageSize, imageSize);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Renders every position of the stream and writes them to the output directory as position-000000.png, position-000001.png...
+     * Positions are rendered in batches on a fixed pool of threads, and only a few batches are held in memory at a time.
+     *
+     * @param positions the positions to export, in order
+     * @param outputDirectory the directory to write the images to
+     * @return the number of images written
+     * @throws IOException if the directory can't be created or an image can't be written
+     */
+    public int export(Stream<String> positions, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ArrayDeque<Future<?>> pending = new ArrayDeque<Future<?>>();
+        int count = 0;
+        try {
+            Iterator<String> iterator = positions.iterator();
+            while (iterator.hasNext()) {
+                ArrayList<String> batch = new ArrayList<String>(BATCH_SIZE);
+                while (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+                    batch.add(iterator.next());
+                }
+                int firstIndex = count;
+                count += batch.size();
+                pending.add(executor.submit(() -> exportBatch(batch, firstIndex, outputDirectory)));
+                // Wait for the oldest batch rather than reading the whole stream in advance
+                if (pending.size() >= threads * 2) {
+                    await(pending.poll());
+                }
+            }
+            while (!pending.isEmpty()) {
+                await(pending.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return count;
+    }
+
+    /**
+     * Replays a move log on an empty board and returns the position after each move.
+     * Each line holds a move as "WORD x y down", with the same coordinates as {@link Player#placeWord};
+     * lowercase letters are blanks. The moves are not checked against any dictionary, but each word must fit on the
+     * board, be made of letters of the language and agree with the tiles already on the squares it crosses.
+     *
+     * @param moves the lines of the move log
+     * @return the positions reached after each move
+     * @throws IllegalArgumentException if a line isn't a move that can be played on the board, naming the line
+     */
+    public List<String> replay(List<String> moves) {
+        Board board = new Board(layout);
+        int size = board.getBoardSize();
+        Alphabet alphabet = language.getAlphabet();
+        ArrayList<String> positions = new ArrayList<String>(moves.size());
+        for (int line = 1; line <= moves.size(); line++) {
+            String move = moves.get(line - 1);
+            String[] fields = move.trim().split("\\s+");
+            if (fields.length != 4 || !(fields[3].equals("true") || fields[3].equals("false"))) {
+                throw new IllegalArgumentException("Line " + line + ": move should be \"WORD x y down\": " + move);
+            }
+            String word = fields[0];
+            int x;
+            int y;
+            try {
+                x = Integer.parseInt(fields[1]);
+                y = Integer.parseInt(fields[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Line " + line + ": coordinates should be numbers: " + move);
+            }
+            boolean directionIsDown = Boolean.parseBoolean(fields[3]);
+            int length = word.length();
+            if (x < 0 || y < 0 || x >= size || y >= size || (directionIsDown ? y : x) + length > size) {
+                throw new IllegalArgumentException("Line " + line + ": " + word + " at (" + x + ", " + y + ") doesn't fit on a board of " + size + " squares: " + move);
+            }
+            // Check the whole move before placing any tile of it
+            for (int i = 0; i < length; i++) {
+                char c = word.charAt(i);
+                char letter = Character.toUpperCase(c);
+                if (alphabet.encode(letter) <= Alphabet.BLANK) {
+                    throw new IllegalArgumentException("Line " + line + ": '" + c + "' isn't a letter of language " + language.getName() + ": " + move);
+                }
+                int square = directionIsDown ? (y + i) * size + x : y * size + x + i;
+                if (board.isOccupied(square) && board.getLetter(square) != letter) {
+                    throw new IllegalArgumentException("Line " + line + ": " + word + " puts " + letter + " on the " + board.getLetter(square)
+                            + " at (" + square % size + ", " + square / size + "): " + move);
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                int squareX = directionIsDown ? x : x + i;
+                int squareY = directionIsDown ? y + i : y;
+                if (!board.isOccupied(squareY * size + squareX)) {
+                    char c = word.charAt(i);
+                    if (Character.isLowerCase(c)) {
+                        board.placeTile(squareX, squareY, language.getTile(' '), Character.toUpperCase(c));
+                    } else {
+                        board.placeTile(squareX, squareY, language.getTile(c), c);
+                    }
+                }
+            }
+            positions.add(board.toPosition());
+        }
+        return positions;
+    }
+
+    /**
+     * Renders and writes one batch of positions.
+     *
+     * @param batch the positions of the batch
+     * @param firstIndex the index of the first position of the batch
+     * @param outputDirectory the directory to write the images to
+     */
+    private void exportBatch(List<String> batch, int firstIndex, Path outputDirectory) {
+        for (int i = 0; i < batch.size(); i++) {
+            Path file = outputDirectory.resolve(String.format("position-%06d.png", firstIndex + i));
+            try {
+                ImageIO.write(render(batch.get(i)), "png", file.toFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Waits for a batch to be written, rethrowing the error it failed with.
+     *
+     * @param batch the batch to wait for
+     * @throws IOException if an image of the batch couldn't be written
+     */
+    private static void await(Future<?> batch) throws IOException {
+        try {
+            batch.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code BoardLayout} class describes the geometry of a board: its size, its premium squares and the square
+ * the first word must cover. The classic 15x15 layout is built in; other layouts, such as 21x21 boards with
+ * quadruple premiums, are read from text files.
+ * <p>
+ * A layout file has one line per row and one character per square:
+ * '.' for a plain square, 'd', 't' and 'q' for double, triple and quadruple letter squares,
+ * 'D', 'T' and 'Q' for double, triple and quadruple word squares, '*' for the start square (a double word square)
+ * or '+' for a plain start square. Without a start square, the middle of the board is used.
+ * Empty lines and lines starting with '#' are ignored.
+ * </p>
+ * <p>
+ * Premiums are kept in flat arrays numbered row by row (y * size + x), like the squares of a {@link Board}.
+ * A layout never changes once built, so it's shared by every board using it.
+ * </p>
+ *
+ * @see Board
+ *
+ * @author agueguen
+ */
+public class BoardLayout {
+
+    /** Largest number of squares on each side of a board: a row or a column fits in the bits of an int */
+    public static final int MAX_SIZE = 31;
+
+    /** The classic 15x15 Scrabble board */
+    public static final BoardLayout CLASSIC = parse("classic", List.of(
+            "T..d...T...d..T",
+            ".D...t...t...D.",
+            "..D...d.d...D..",
+            "d..D...d...D..d",
+            "....D.....D....",
+            ".t...t...t...t.",
+            "..d...d.d...d..",
+            "T..d...*...d..T",
+            "..d...d.d...d..",
+            ".t...t...t...t.",
+            "....D.....D....",
+            "d..D...d...D..d",
+            "..D...d.d...D..",
+            ".D...t...t...D.",
+            "T..d...T...d..T"));
+
+    private final String name;
+    private final int size;
+    private final int center;
+    private final byte[] letterMultipliers;
+    private final byte[] wordMultipliers;
+
+    private BoardLayout(String name, int size, int center, byte[] letterMultipliers, byte[] wordMultipliers) {
+        this.name = name;
+        this.size = size;
+        this.center = center;
+        this.letterMultipliers = letterMultipliers;
+        this.wordMultipliers = wordMultipliers;
+    }
+
+    /**
+     * Reads a layout from a file, named after the file.
+     *
+     * @param file the layout file
+     * @return the layout
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file isn't a valid layout
+     */
+    public static BoardLayout load(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".txt")) {
+            name = name.substring(0, name.length() - 4);
+        }
+        return parse(name, Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Builds a layout from its rows, in the format of layout files.
+     *
+     * @param name the name of the layout
+     * @param lines the lines of the layout
+     * @return the layout
+     * @throws IllegalArgumentException if the rows aren't a valid layout
+     */
+    public static BoardLayout parse(String name, List<String> lines) {
+        ArrayList<String> rows = new ArrayList<String>();
+        for (String line : lines) {
+            String row = line.strip();
+            if (!row.isEmpty() && !row.startsWith("#")) {
+                rows.add(row);
+            }
+        }
+        int size = rows.size();
+        if (size < 2 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Layout " + name + " should have 2 to " + MAX_SIZE + " rows, not " + size);
+        }
+        byte[] letterMultipliers = new byte[size * size];
+        byte[] wordMultipliers = new byte[size * size];
+        int center = -1;
+        for (int y = 0; y < size; y++) {
+            String row = rows.get(y);
+            if (row.length() != size) {
+                throw new IllegalArgumentException("Row " + y + " of layout " + name + " should have " + size + " squares: " + row);
+            }
+            for (int x = 0; x < size; x++) {
+                int square = y * size + x;
+                char c = row.charAt(x);
+                letterMultipliers[square] = 1;
+                wordMultipliers[square] = 1;
+                switch (c) {
+                    case '.' -> {
+                    }
+                    case 'd', 't', 'q' -> letterMultipliers[square] = multiplier(c);
+                    case 'D', 'T', 'Q' -> wordMultipliers[square] = multiplier(c);
+                    case '*', '+' -> {
+                        if (center >= 0) {
+                            throw new IllegalArgumentException("Layout " + name + " has more than one start square");
+                        }
+                        center = square;
+                        if (c == '*') {
+                            wordMultipliers[square] = 2;
+                        }
+                    }
+                    default -> throw new IllegalArgumentException("Unknown square '" + c + "' in row " + y + " of layout " + name);
+                }
+            }
+        }
+        if (center < 0) {
+            center = (size / 2) * size + size / 2;
+        }
+        return new BoardLayout(name, size, center, letterMultipliers, wordMultipliers);
+    }
+
+    private static byte multiplier(char c) {
+        return switch (Character.toLowerCase(c)) {
+            case 'd' -> 2;
+            case 't' -> 3;
+            default -> 4;
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of squares on each side of the board.
+     *
+     * @return the size of the board
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the square the first word must cover.
+     *
+     * @return the index of the start square, numbered row by row
+     */
+    public int getCenter() {
+        return center;
+    }
+
+    /**
+     * Returns the factor applied to the value of a tile placed on a square.
+     *
+     * @param square the index of the square
+     * @return the letter multiplier, 1 on word multiplier squares
+     */
+    public int getLetterMultiplier(int square) {
+        return letterMultipliers[square];
+    }
+
+    /**
+     * Returns the factor applied to a word covering a square, if a tile is placed on it.
+     *
+     * @param square the index of the square
+     * @return the word multiplier, 1 on letter multiplier squares
+     */
+    public int getWordMultiplier(int square) {
+        return wordMultipliers[square];
+    }
+
+    /**
+     * Returns whether another layout has the same size, premium squares and start square, whatever its name.
+     *
+     * @param other the object to compare with
+     * @return true if the other object is a layout of the same board
+     */
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof BoardLayout layout && size == layout.size && center == layout.center
+                && Arrays.equals(letterMultipliers, layout.letterMultipliers) && Arrays.equals(wordMultipliers, layout.wordMultipliers);
+    }
+
+    @Override
+    public int hashCode() {
+        return (size * 31 + center) * 31 * 31 + Arrays.hashCode(letterMultipliers) * 31 + Arrays.hashCode(wordMultipliers);
+    }
+
+    /**
+     * Returns the layout in the format of layout files.
+     *
+     * @return the rows of the layout, one per line
+     */
+    @Override
+    public String toString() {
+        StringBuilder rows = new StringBuilder(size * (size + 1));
+        for (int square = 0; square < size * size; square++) {
+            char c = ".dtq".charAt(letterMultipliers[square] - 1);
+            if (wordMultipliers[square] > 1) {
+                c = ".DTQ".charAt(wordMultipliers[square] - 1);
+            }
+            if (square == center) {
+                c = wordMultipliers[square] == 2 ? '*' : '+';
+            }
+            rows.append(c);
+            if (square % size == size - 1) {
+                rows.append('\n');
+            }
+        }
+        return rows.toString();
+    }
+}
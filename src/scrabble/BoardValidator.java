@@ -0,0 +1,365 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * The {@code BoardValidator} class checks that a whole board is a position a game could have reached, such as
+ * positions imported from elsewhere: unlike placing a word, which only checks the word placed and the words it forms
+ * across, every word on the board is checked.
+ * <p>
+ * A position is legal if every word of two letters or more, across and down, is a valid word, if the center square
+ * holds a tile (unless the board is empty), if all the tiles are connected to each other, and if there aren't more
+ * tiles of a letter, or blanks, than the language has. Every violation is reported, not only the first one.
+ * </p>
+ * <p>
+ * The words are found in one pass over the squares, then all checked against the {@link WordTrie} of the valid words,
+ * straight from the letters of the board, so that a legal position is validated without allocating a string.
+ * Positions can be validated from their text (in the format of {@link Board#toPosition()}) without building a
+ * {@link Board}. A {@code BoardValidator} can be used by several threads at once.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.BoardValidator [language] [positions file] [layout file]} validates a file of positions,
+ * one per line, and prints the violations of the illegal ones.
+ * </p>
+ *
+ * @see BoardValidatorBenchmark
+ *
+ * @author agueguen
+ */
+public class BoardValidator {
+
+    /**
+     * The kinds of rules a position can break.
+     */
+    public enum Kind {
+        /** A word across or down isn't a valid word */
+        INVALID_WORD,
+        /** The board isn't empty but the center square is */
+        EMPTY_CENTER,
+        /** Tiles aren't connected to the tile on the center square, or to the largest group of tiles without one */
+        DISCONNECTED,
+        /** The only tile on the board doesn't make a word */
+        SINGLE_TILE,
+        /** A letter isn't in the alphabet of the language */
+        UNKNOWN_LETTER,
+        /** More tiles of a letter, or more blanks, than the language has */
+        TOO_MANY_TILES
+    }
+
+    /**
+     * A rule broken by a position, with the square it was found at.
+     */
+    public static class Violation {
+
+        private final Kind kind;
+        private final int x;
+        private final int y;
+        private final String detail;
+
+        Violation(Kind kind, int x, int y, String detail) {
+            this.kind = kind;
+            this.x = x;
+            this.y = y;
+            this.detail = detail;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the column of the square, the first square of the word for an invalid word
+         */
+        public int getX() {
+            return x;
+        }
+
+        /**
+         * @return the row of the square, the first square of the word for an invalid word
+         */
+        public int getY() {
+            return y;
+        }
+
+        /**
+         * @return a description of the violation
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        @Override
+        public String toString() {
+            return kind + " at (" + x + ", " + y + "): " + detail;
+        }
+    }
+
+    private final WordTrie trie;
+    private final Alphabet alphabet;
+    private final int[] distribution;
+
+    /**
+     * Constructs a {@code BoardValidator} for the given valid words and language.
+     *
+     * @param validWords the valid words
+     * @param language the language of the tiles
+     */
+    public BoardValidator(ValidWords validWords, Language language) {
+        this.trie = validWords.getTrie();
+        this.alphabet = language.getAlphabet();
+        this.distribution = language.getDistributionByCode();
+    }
+
+    /**
+     * Validates the position on a board.
+     *
+     * @param board the board
+     * @return the violations, empty if the position is legal
+     */
+    public ArrayList<Violation> validate(Board board) {
+        int size = board.getBoardSize();
+        char[] letters = new char[size * size];
+        boolean[] blanks = new boolean[size * size];
+        for (int square = 0; square < letters.length; square++) {
+            letters[square] = board.getLetter(square);
+            Tile tile = board.getTile(square);
+            blanks[square] = tile != null && tile.isBlank();
+        }
+        return validate(letters, blanks, size, board.getCenter());
+    }
+
+    /**
+     * Validates a position given as text, in the format of {@link Board#toPosition()}.
+     *
+     * @param position the position
+     * @param layout the layout of the board of the position
+     * @return the violations, empty if the position is legal
+     * @throws IllegalArgumentException if the position doesn't have the size of the board
+     */
+    public ArrayList<Violation> validate(String position, BoardLayout layout) {
+        int size = layout.getSize();
+        if (position.length() != size * (size + 1) - 1) {
+            throw new IllegalArgumentException("Position should have " + size + " rows of " + size + " squares: " + position);
+        }
+        char[] letters = new char[size * size];
+        boolean[] blanks = new boolean[size * size];
+        for (int y = 0; y < size; y++) {
+            int row = y * (size + 1);
+            if (y > 0 && position.charAt(row - 1) != '/') {
+                throw new IllegalArgumentException("Row " + y + " should have " + size + " squares: " + position);
+            }
+            for (int x = 0; x < size; x++) {
+                char c = position.charAt(row + x);
+                if (c == '/') {
+                    throw new IllegalArgumentException("Row " + y + " should have " + size + " squares: " + position);
+                }
+                if (c != '.') {
+                    letters[y * size + x] = Character.toUpperCase(c);
+                    blanks[y * size + x] = Character.isLowerCase(c);
+                }
+            }
+        }
+        return validate(letters, blanks, size, layout.getCenter());
+    }
+
+    /**
+     * Validates the letters of a board, '\0' on empty squares.
+     */
+    private ArrayList<Violation> validate(char[] letters, boolean[] blanks, int size, int center) {
+        ArrayList<Violation> violations = new ArrayList<Violation>(0);
+        // Start square, length and step between squares of each word: a word takes at least three squares of a line
+        // with the empty square after it, so there are fewer words than squares
+        int[] starts = new int[size * size];
+        int[] lengths = new int[starts.length];
+        int[] steps = new int[starts.length];
+        int words = 0;
+        int tiles = 0;
+        int[] counts = new int[alphabet.size()];
+
+        // One pass over the squares, counting the tiles and finding the words starting on each square
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int square = y * size + x;
+                char letter = letters[square];
+                if (letter == '\0') {
+                    continue;
+                }
+                tiles++;
+                int code = alphabet.encode(letter);
+                if (code <= Alphabet.BLANK) {
+                    violations.add(new Violation(Kind.UNKNOWN_LETTER, x, y, "'" + letter + "' isn't a letter of the language"));
+                } else {
+                    counts[blanks[square] ? Alphabet.BLANK : code]++;
+                }
+                if ((x == 0 || letters[square - 1] == '\0') && x + 1 < size && letters[square + 1] != '\0') {
+                    int end = x + 1;
+                    while (end < size && letters[y * size + end] != '\0') {
+                        end++;
+                    }
+                    starts[words] = square;
+                    steps[words] = 1;
+                    lengths[words++] = end - x;
+                }
+                if ((y == 0 || letters[square - size] == '\0') && y + 1 < size && letters[square + size] != '\0') {
+                    int end = y + 1;
+                    while (end < size && letters[end * size + x] != '\0') {
+                        end++;
+                    }
+                    starts[words] = square;
+                    steps[words] = size;
+                    lengths[words++] = end - y;
+                }
+            }
+        }
+
+        // The words checked together
+        for (int word = 0; word < words; word++) {
+            int step = steps[word];
+            int node = trie.root();
+            for (int i = 0, square = starts[word]; i < lengths[word] && node >= 0; i++, square += step) {
+                node = trie.child(node, letters[square]);
+            }
+            if (node < 0 || !trie.isTerminal(node)) {
+                char[] text = new char[lengths[word]];
+                for (int i = 0; i < text.length; i++) {
+                    text[i] = letters[starts[word] + i * step];
+                }
+                violations.add(new Violation(Kind.INVALID_WORD, starts[word] % size, starts[word] / size,
+                        new String(text) + (step == 1 ? " across" : " down") + " isn't a valid word"));
+            }
+        }
+
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > distribution[code]) {
+                violations.add(new Violation(Kind.TOO_MANY_TILES, center % size, center / size, counts[code] + " "
+                        + (code == Alphabet.BLANK ? "blanks" : "tiles " + alphabet.decode(code)) + " on the board, the language has " + distribution[code]));
+            }
+        }
+
+        if (tiles == 0) {
+            return violations;
+        }
+        if (letters[center] == '\0') {
+            violations.add(new Violation(Kind.EMPTY_CENTER, center % size, center / size, "The center square is empty"));
+        }
+        if (tiles == 1) {
+            for (int square = 0; square < letters.length; square++) {
+                if (letters[square] != '\0') {
+                    violations.add(new Violation(Kind.SINGLE_TILE, square % size, square / size, "A single tile doesn't make a word"));
+                }
+            }
+            return violations;
+        }
+        checkConnected(letters, size, center, violations);
+        return violations;
+    }
+
+    /**
+     * Reports each group of connected tiles other than the one on the center square, or than the largest group if
+     * the center square is empty, at its first square.
+     */
+    private static void checkConnected(char[] letters, int size, int center, ArrayList<Violation> violations) {
+        int[] groups = new int[letters.length];
+        int[] stack = new int[letters.length];
+        ArrayList<int[]> found = new ArrayList<int[]>(1);
+        for (int first = 0; first < letters.length; first++) {
+            if (letters[first] == '\0' || groups[first] != 0) {
+                continue;
+            }
+            // Flood fill of the group of the tile, numbering groups from 1
+            int group = found.size() + 1;
+            int tiles = 0;
+            int depth = 0;
+            groups[first] = group;
+            stack[depth++] = first;
+            while (depth > 0) {
+                int square = stack[--depth];
+                tiles++;
+                int x = square % size;
+                if (x > 0 && letters[square - 1] != '\0' && groups[square - 1] == 0) {
+                    groups[square - 1] = group;
+                    stack[depth++] = square - 1;
+                }
+                if (x + 1 < size && letters[square + 1] != '\0' && groups[square + 1] == 0) {
+                    groups[square + 1] = group;
+                    stack[depth++] = square + 1;
+                }
+                if (square >= size && letters[square - size] != '\0' && groups[square - size] == 0) {
+                    groups[square - size] = group;
+                    stack[depth++] = square - size;
+                }
+                if (square + size < letters.length && letters[square + size] != '\0' && groups[square + size] == 0) {
+                    groups[square + size] = group;
+                    stack[depth++] = square + size;
+                }
+            }
+            found.add(new int[]{first, tiles});
+        }
+        if (found.size() == 1) {
+            return;
+        }
+        int main = groups[center] - 1;
+        if (main < 0) {
+            main = 0;
+            for (int group = 1; group < found.size(); group++) {
+                if (found.get(group)[1] > found.get(main)[1]) {
+                    main = group;
+                }
+            }
+        }
+        for (int group = 0; group < found.size(); group++) {
+            if (group != main) {
+                int first = found.get(group)[0];
+                violations.add(new Violation(Kind.DISCONNECTED, first % size, first / size,
+                        found.get(group)[1] + (found.get(group)[1] == 1 ? " tile" : " tiles") + " not connected to the " + (groups[center] != 0 ? "center square" : "other tiles")));
+            }
+        }
+    }
+
+    /**
+     * @param args the language, the file of positions and the layout file
+     * @throws IOException if the positions or the layout can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        Path file = Path.of(args.length > 1 ? args[1] : language.getName() + ".positions");
+        BoardLayout layout = args.length > 2 ? BoardLayout.load(Path.of(args[2])) : BoardLayout.CLASSIC;
+        BoardValidator validator = new BoardValidator(SharedDictionary.forLanguage(language).current(), language);
+        int positions = 0;
+        int illegal = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                positions++;
+                ArrayList<Violation> violations;
+                try {
+                    violations = validator.validate(line.strip(), layout);
+                } catch (IllegalArgumentException e) {
+                    System.out.println("Position " + positions + ": " + e.getMessage());
+                    illegal++;
+                    continue;
+                }
+                if (!violations.isEmpty()) {
+                    illegal++;
+                    System.out.println("Position " + positions + ":");
+                    for (Violation violation : violations) {
+                        System.out.println("  " + violation);
+                    }
+                }
+            }
+        }
+        System.out.println(positions + " positions, " + illegal + " illegal");
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Measures how many positions a {@link BoardValidator} validates per minute, on one thread and on all of them.
+ * <p>
+ * The positions are those reached in games between players always choosing the best move, which are all legal,
+ * and as many copies of them broken at random: a letter changed, a tile moved or a tile removed.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.BoardValidatorBenchmark [language] [games] [validations]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class BoardValidatorBenchmark {
+
+    /**
+     * @param args the language, the number of games played for positions and the number of validations per measure
+     */
+    public static void main(String[] args) {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int numberOfGames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int validations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+        ValidWords validWords = SharedDictionary.forLanguage(language).current();
+        BoardValidator validator = new BoardValidator(validWords, language);
+        OpeningBook openingBook = new OpeningBook(validWords, language, BoardLayout.CLASSIC);
+
+        List<String> legal = IntStream.range(0, numberOfGames).parallel()
+                .mapToObj(game -> playGame(language, validWords, openingBook, validator))
+                .flatMap(List::stream)
+                .toList();
+        int size = BoardLayout.CLASSIC.getSize();
+        String letters = language.getAlphabet().toString();
+        Random random = new Random(42);
+        ArrayList<String> positions = new ArrayList<String>(legal);
+        for (String position : legal) {
+            char[] squares = position.toCharArray();
+            int square;
+            do {
+                square = random.nextInt(squares.length);
+            } while (squares[square] == '.' || squares[square] == '/');
+            switch (random.nextInt(3)) {
+                case 0 -> squares[square] = letters.charAt(random.nextInt(letters.length()));
+                case 1 -> {
+                    int to = random.nextInt(squares.length);
+                    if (squares[to] == '.') {
+                        squares[to] = squares[square];
+                        squares[square] = '.';
+                    }
+                }
+                default -> squares[square] = '.';
+            }
+            positions.add(new String(squares));
+        }
+
+        int illegal = 0;
+        EnumMap<BoardValidator.Kind, Integer> kinds = new EnumMap<BoardValidator.Kind, Integer>(BoardValidator.Kind.class);
+        for (String position : positions) {
+            ArrayList<BoardValidator.Violation> violations = validator.validate(position, BoardLayout.CLASSIC);
+            if (!violations.isEmpty()) {
+                illegal++;
+            }
+            for (BoardValidator.Violation violation : violations) {
+                kinds.merge(violation.getKind(), 1, Integer::sum);
+            }
+        }
+        System.out.printf("%d positions of %dx%d boards, %d legal from games, %d illegal: %s%n",
+                positions.size(), size, size, legal.size(), illegal, kinds);
+
+        String[] sample = positions.toArray(new String[0]);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < validations; i++) {
+                found += validator.validate(sample[i % sample.length], BoardLayout.CLASSIC).size();
+            }
+            double single = (System.nanoTime() - start) / 1e9;
+            start = System.nanoTime();
+            found += IntStream.range(0, validations).parallel()
+                    .mapToLong(i -> validator.validate(sample[i % sample.length], BoardLayout.CLASSIC).size())
+                    .sum();
+            double parallel = (System.nanoTime() - start) / 1e9;
+            System.out.printf("one thread: %.2f us per position, %.1f M positions per minute; %d threads: %.1f M positions per minute (%d violations)%n",
+                    single * 1e6 / validations, validations / single * 60 / 1e6, Runtime.getRuntime().availableProcessors(),
+                    validations / parallel * 60 / 1e6, found);
+        }
+    }
+
+    /**
+     * Plays a game between two players always choosing the best move, checking each position reached both from
+     * the board and from its text.
+     *
+     * @return the positions after each move
+     */
+    private static List<String> playGame(Language language, ValidWords validWords, OpeningBook openingBook, BoardValidator validator) {
+        Bag bag = new Bag(language);
+        ArrayList<Player> players = new ArrayList<Player>(2);
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player(validWords);
+            player.drawTiles(bag);
+            players.add(player);
+        }
+        Game game = new Game(language, bag, players, new Board(BoardLayout.CLASSIC), 0);
+        ArrayList<String> positions = new ArrayList<String>();
+        while (!game.isOver()) {
+            Placement best = openingBook.best(game.getBoard(), players.get(game.getPlayerTurn()).getTileRack());
+            if (best == null) {
+                break;
+            }
+            game.playTurn(best.getWord(), best.getX(), best.getY(), best.isDirectionDown());
+            String position = game.getBoard().toPosition();
+            ArrayList<BoardValidator.Violation> violations = validator.validate(game.getBoard());
+            if (!violations.isEmpty() || !validator.validate(position, BoardLayout.CLASSIC).isEmpty()) {
+                System.out.println("Position reached in a game found illegal: " + position + " " + violations);
+            }
+            positions.add(position);
+        }
+        return positions;
+    }
+}
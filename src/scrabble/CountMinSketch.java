@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+/**
+ * The {@code CountMinSketch} class counts how often words occur in a fixed amount of memory, however many
+ * distinct words there are. Counts are estimates that can only be too high: each word adds to one counter per row,
+ * and its estimate is the smallest of its counters, so it's only off by the words sharing all of its counters.
+ * With a width w and a depth d, an estimate exceeds the true count by more than 2.72 / w of the total count with a
+ * probability below e<sup>-d</sup>.
+ * <p>
+ * Sketches of the same dimensions merge by adding their counters, so counting can be split across threads.
+ * </p>
+ *
+ * @see GameStatistics
+ *
+ * @author agueguen
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] counts;
+    private long total = 0;
+
+    /**
+     * Constructs an empty {@code CountMinSketch}.
+     *
+     * @param width the number of counters per row, rounded up to a power of two
+     * @param depth the number of rows
+     * @throws IllegalArgumentException if the width or the depth isn't positive
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Width and depth should be positive: " + width + "x" + depth);
+        }
+        int rounded = Integer.highestOneBit(width);
+        this.width = rounded < width ? rounded << 1 : rounded;
+        this.depth = depth;
+        this.counts = new long[this.width * depth];
+    }
+
+    /**
+     * Counts occurrences of a word.
+     *
+     * @param word the word
+     * @param count the number of occurrences
+     * @return the estimated count of the word afterwards
+     */
+    public long add(String word, long count) {
+        long hash = BloomFilter.hash(word);
+        long probe = (hash * 0x9E3779B97F4A7C15L) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int counter = row * width + index(hash, probe, row);
+            counts[counter] += count;
+            estimate = Math.min(estimate, counts[counter]);
+        }
+        total += count;
+        return estimate;
+    }
+
+    /**
+     * Returns the estimated number of occurrences of a word, never less than the true number.
+     *
+     * @param word the word
+     * @return the estimated count
+     */
+    public long estimate(String word) {
+        long hash = BloomFilter.hash(word);
+        long probe = (hash * 0x9E3779B97F4A7C15L) | 1;
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row * width + index(hash, probe, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds the counts of another sketch to this one.
+     *
+     * @param other a sketch of the same dimensions
+     * @throws IllegalArgumentException if the sketches don't have the same dimensions
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Can't merge a " + other.width + "x" + other.depth + " sketch into a " + width + "x" + depth + " one");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    /**
+     * Returns the number of occurrences counted, of all words.
+     *
+     * @return the total count
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the size of the sketch.
+     *
+     * @return the number of bytes used by the counters
+     */
+    public long sizeInBytes() {
+        return counts.length * 8L;
+    }
+
+    /**
+     * Picks the counter of a word in a row, by double hashing.
+     */
+    private int index(long hash, long probe, int row) {
+        return (int) ((hash + row * probe) >>> 32) & (width - 1);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Measures what holding word lists costs the heap and the garbage collector, with the words on the heap
+ * (a set of words and the trie the move generator walks) or off the heap (only a trie mapped from a file),
+ * and how long a lookup takes either way.
+ * <p>
+ * Several copies of the word list are held at once, like a server keeping the lists of several languages and the
+ * versions still used by running games. Only the size of what's on the heap matters to full collections, which
+ * are timed, as well as the collections run while allocating short-lived objects like during a game.
+ * Run once per mode, so each run starts from an empty heap.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.DictionaryFootprintBenchmark [language] [copies] [heap|offheap]}
+ * </p>
+ *
+ * @see ValidWords#offHeap(Language)
+ *
+ * @author agueguen
+ */
+public class DictionaryFootprintBenchmark {
+
+    /**
+     * @param args the language, the number of copies of the word list held and where they're kept
+     */
+    public static void main(String[] args) {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        boolean offHeap = args.length > 2 && args[2].equals("offheap");
+
+        long before = usedHeap();
+        long start = System.nanoTime();
+        ArrayList<ValidWords> lists = new ArrayList<ValidWords>();
+        for (int i = 0; i < copies; i++) {
+            ValidWords validWords = offHeap ? ValidWords.offHeap(language) : new ValidWords(language);
+            validWords.getTrie();
+            lists.add(validWords);
+        }
+        long loadNanos = System.nanoTime() - start;
+        long after = usedHeap();
+        ValidWords validWords = lists.get(0);
+        System.out.printf("%s: %d copies of %d words loaded in %.0f ms, %.1f MiB on the heap (%.1f MiB each), trie of %.1f MiB%s%n",
+                offHeap ? "off heap" : "on heap", copies, validWords.size(), loadNanos / 1e6,
+                (after - before) / 1048576.0, (after - before) / 1048576.0 / copies,
+                validWords.getTrie().sizeInBytes() / 1048576.0, validWords.isOffHeap() ? " mapped" : "");
+
+        long[] gc = gcTotals();
+        int fullCollections = 10;
+        for (int i = 0; i < fullCollections; i++) {
+            System.gc();
+        }
+        long[] full = gcTotals();
+        System.out.printf("full collections: %.1f ms each%n", (double) (full[1] - gc[1]) / fullCollections);
+
+        // Short-lived garbage, with a few objects kept long enough to be promoted
+        Random random = new Random(42);
+        ArrayList<int[]> kept = new ArrayList<int[]>();
+        long allocated = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < 2_000_000; i++) {
+            int[] garbage = new int[16 + random.nextInt(256)];
+            allocated += garbage.length * 4L;
+            if (random.nextInt(64) == 0) {
+                kept.add(garbage);
+                if (kept.size() > 20_000) {
+                    kept.clear();
+                }
+            }
+        }
+        long churnNanos = System.nanoTime() - start;
+        long[] churn = gcTotals();
+        System.out.printf("allocating %.0f MiB: %.0f ms, %d collections taking %d ms%n", allocated / 1048576.0,
+                churnNanos / 1e6, churn[0] - full[0] - fullCollections, churn[1] - full[1]);
+
+        ArrayList<String> words = new ArrayList<String>(validWords.getValidWords());
+        String[] sample = new String[1 << 16];
+        for (int i = 0; i < sample.length; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            // Half of the lookups miss, by a letter
+            sample[i] = random.nextBoolean() ? word : word.substring(0, word.length() - 1) + '#';
+        }
+        words = null;
+        for (int round = 0; round < 2; round++) {
+            int found = 0;
+            int lookups = 5_000_000;
+            start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                if (lists.get(i % copies).contains(new String(sample[i & (sample.length - 1)]))) {
+                    found++;
+                }
+            }
+            if (round == 1) {
+                System.out.printf("contains: %.1f ns per lookup (%d found)%n", (double) (System.nanoTime() - start) / lookups, found);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Returns the number of collections so far and the time they took in milliseconds, over every collector.
+     */
+    private static long[] gcTotals() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(0, collector.getCollectionCount());
+            totals[1] += Math.max(0, collector.getCollectionTime());
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code DuplicateGame} class runs a game of duplicate Scrabble: every participant gets the same rack on the same
+ * board, and each round the board advances with the best play, whatever the participants found.
+ * <p>
+ * A round starts with {@link #startRound()}, participants {@link #submit} their placement (the last submission
+ * of a participant counts), and {@link #endRound()} scores them all. The board and the rack don't change during
+ * a round, so submissions are evaluated in parallel against them without copying or locking, and identical
+ * submissions, frequent with many participants, are evaluated only once. The best play is searched by the
+ * {@link MoveGenerator} as soon as the round starts, while participants are still thinking.
+ * </p>
+ *
+ * @see Game
+ *
+ * @author agueguen
+ */
+public class DuplicateGame {
+
+    private final Language language;
+    private final Board board;
+    private final Bag bag;
+    private final PlacementEngine placementEngine;
+    private final MoveGenerator moveGenerator;
+    // Holds the rack of the round and scores the top plays
+    private final Player top;
+
+    // Held while a round is started or closed, so the board and the rack don't change under a scoring pass
+    private final Object roundLock = new Object();
+    // Submissions of the round in progress, swapped for an empty map when the round closes (guarded by this)
+    private ConcurrentHashMap<String, Submission> submissions = new ConcurrentHashMap<String, Submission>();
+    private final ConcurrentHashMap<String, Integer> scores = new ConcurrentHashMap<String, Integer>();
+    private CompletableFuture<Placement> topPlay;
+    private volatile boolean roundInProgress = false;
+    private int round = 0;
+
+    /**
+     * Constructs a {@code DuplicateGame} on a classic board in the given language, with the current word list of the language.
+     *
+     * @param language the language of the game
+     */
+    public DuplicateGame(Language language) {
+        this(language, SharedDictionary.forLanguage(language).current(), new Bag(language));
+    }
+
+    /**
+     * Constructs a {@code DuplicateGame} on a classic board with the given word list and bag.
+     *
+     * @param language the language of the game
+     * @param validWords the valid words
+     * @param bag the bag the racks are drawn from
+     */
+    public DuplicateGame(Language language, ValidWords validWords, Bag bag) {
+        this(language, validWords, bag, BoardLayout.CLASSIC);
+    }
+
+    /**
+     * Constructs a {@code DuplicateGame} on a board with the given layout, with the given word list and bag.
+     *
+     * @param language the language of the game
+     * @param validWords the valid words
+     * @param bag the bag the racks are drawn from
+     * @param layout the size and premium squares of the board
+     */
+    public DuplicateGame(Language language, ValidWords validWords, Bag bag, BoardLayout layout) {
+        this.language = language;
+        this.board = new Board(layout);
+        this.bag = bag;
+        this.placementEngine = new PlacementEngine(validWords);
+        this.moveGenerator = new MoveGenerator(validWords, language);
+        this.top = new Player(validWords, new ArrayList<Tile>(), 0);
+    }
+
+    /**
+     * Completes the rack from the bag and opens the round to submissions.
+     *
+     * @return the tiles of the rack, the same for every participant
+     */
+    public List<Tile> startRound() {
+        synchronized (roundLock) {
+            synchronized (this) {
+                if (roundInProgress) {
+                    System.out.println("Round " + round + " is already in progress");
+                    return getRack();
+                }
+                top.drawTiles(bag);
+                round++;
+                ArrayList<Tile> rack = new ArrayList<Tile>(top.getTileRack());
+                topPlay = CompletableFuture.supplyAsync(() -> moveGenerator.best(board, rack));
+                roundInProgress = true;
+                return getRack();
+            }
+        }
+    }
+
+    /**
+     * Submits a participant's placement for the current round. Can be called from any thread.
+     * A submission accepted is always scored: the round is closed under the same short lock, so a submission either
+     * makes it into the round being closed or is refused, without waiting for the round to be scored.
+     *
+     * @param participant the name of the participant
+     * @param word the word to place, including letters already on the board
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @return true if the submission was accepted, false if no round is in progress
+     */
+    public synchronized boolean submit(String participant, String word, int x, int y, boolean directionIsDown) {
+        if (!roundInProgress) {
+            System.out.println("No round in progress, submission of " + participant + " ignored");
+            return false;
+        }
+        submissions.put(participant, new Submission(word, x, y, directionIsDown));
+        scores.putIfAbsent(participant, 0);
+        return true;
+    }
+
+    /**
+     * Closes the round: scores every submission in parallel, ranks them against the top play,
+     * then plays the top play on the board.
+     * Submissions are refused as soon as the round is closed; scoring them and waiting for the top play
+     * doesn't hold up participants submitting.
+     *
+     * @return the results of the round, or null if no round is in progress
+     */
+    public Round endRound() {
+        synchronized (roundLock) {
+            ConcurrentHashMap<String, Submission> closed;
+            ArrayList<Tile> rack;
+            int number;
+            synchronized (this) {
+                if (!roundInProgress) {
+                    System.out.println("No round in progress");
+                    return null;
+                }
+                roundInProgress = false;
+                closed = submissions;
+                submissions = new ConcurrentHashMap<String, Submission>();
+                rack = new ArrayList<Tile>(top.getTileRack());
+                number = round;
+            }
+            return score(closed, rack, number);
+        }
+    }
+
+    /**
+     * Scores the submissions of a closed round and plays the top play, the round lock held.
+     */
+    private Round score(ConcurrentHashMap<String, Submission> closed, ArrayList<Tile> rack, int number) {
+        ConcurrentHashMap<Submission, Placement> evaluations = new ConcurrentHashMap<Submission, Placement>();
+        List<Result> results = closed.entrySet().parallelStream()
+                .map(entry -> new Result(entry.getKey(), evaluations.computeIfAbsent(entry.getValue(),
+                        s -> placementEngine.evaluate(board, rack, s.word, s.x, s.y, s.directionIsDown))))
+                .sorted(Comparator.comparingInt((Result result) -> result.getPlacement().getScore()).reversed()
+                        .thenComparing(Result::getParticipant))
+                .toList();
+        Placement best = topPlay.join();
+        Round result = new Round(number, Collections.unmodifiableList(rack), best, results);
+
+        for (Result participantResult : results) {
+            scores.merge(participantResult.getParticipant(), participantResult.getPlacement().getScore(), Integer::sum);
+        }
+        if (best != null) {
+            // getRack copies the rack under the game lock
+            synchronized (this) {
+                top.play(best, board);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the game is over: the bag and the rack are empty, or the rack can't be played.
+     *
+     * @param lastRound the last round played
+     * @return true if no round can be played anymore
+     */
+    public boolean isOver(Round lastRound) {
+        return (lastRound != null && lastRound.getTopPlay() == null) || (bag.getBagSize() == 0 && top.getTileRack().isEmpty());
+    }
+
+    /**
+     * Returns the rack of the round.
+     *
+     * @return a copy of the tiles of the rack
+     */
+    public synchronized List<Tile> getRack() {
+        return Collections.unmodifiableList(new ArrayList<Tile>(top.getTileRack()));
+    }
+
+    /**
+     * Returns the total score of each participant, and of the top plays under the name "top".
+     *
+     * @return the scores by participant
+     */
+    public Map<String, Integer> getScores() {
+        ConcurrentHashMap<String, Integer> totals = new ConcurrentHashMap<String, Integer>(scores);
+        totals.put("top", top.getScore());
+        return totals;
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public Bag getBag() {
+        return bag;
+    }
+
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * A placement submitted by a participant; identical submissions are equal so they're evaluated once.
+     */
+    private static final class Submission {
+
+        private final String word;
+        private final int x;
+        private final int y;
+        private final boolean directionIsDown;
+
+        Submission(String word, int x, int y, boolean directionIsDown) {
+            this.word = word;
+            this.x = x;
+            this.y = y;
+            this.directionIsDown = directionIsDown;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Submission s && word.equals(s.word) && x == s.x && y == s.y && directionIsDown == s.directionIsDown;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((word.hashCode() * 31 + x) * 31 + y) * 2 + (directionIsDown ? 1 : 0);
+        }
+    }
+
+    /**
+     * The evaluated submission of a participant.
+     */
+    public static class Result {
+
+        private final String participant;
+        private final Placement placement;
+
+        Result(String participant, Placement placement) {
+            this.participant = participant;
+            this.placement = placement;
+        }
+
+        public String getParticipant() {
+            return participant;
+        }
+
+        public Placement getPlacement() {
+            return placement;
+        }
+
+        @Override
+        public String toString() {
+            return participant + ": " + placement;
+        }
+    }
+
+    /**
+     * The outcome of a round: the submissions ranked by score, and the top play they're compared with.
+     */
+    public static class Round {
+
+        private final int number;
+        private final List<Tile> rack;
+        private final Placement topPlay;
+        private final List<Result> ranking;
+
+        Round(int number, List<Tile> rack, Placement topPlay, List<Result> ranking) {
+            this.number = number;
+            this.rack = rack;
+            this.topPlay = topPlay;
+            this.ranking = ranking;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+
+        public List<Tile> getRack() {
+            return rack;
+        }
+
+        /**
+         * Returns the best play of the round, which the board advanced with.
+         *
+         * @return the top play, or null if the rack couldn't be played
+         */
+        public Placement getTopPlay() {
+            return topPlay;
+        }
+
+        /**
+         * Returns the submissions from the best score to the worst, invalid ones scoring 0.
+         *
+         * @return the ranked submissions
+         */
+        public List<Result> getRanking() {
+            return ranking;
+        }
+
+        /**
+         * Returns a participant's score as a percentage of the top play.
+         *
+         * @param result the participant's result
+         * @return the percentage, 100 if the top play scores 0
+         */
+        public double percentOfTop(Result result) {
+            int topScore = topPlay == null ? 0 : topPlay.getScore();
+            return topScore == 0 ? 100 : 100.0 * result.getPlacement().getScore() / topScore;
+        }
+
+        @Override
+        public String toString() {
+            return "Round " + number + " " + rack + ", top: " + topPlay + ", " + ranking.size() + " submissions";
+        }
+    }
+}
@@ -6,9 +6,12 @@ package scrabble;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
@@ -17,35 +20,210 @@ import javax.swing.WindowConstants;
  *
  * @author agueguen
  */
-public class Game {
+public final class Game {
     
     private Language language;
     private Bag bag;
     private ArrayList<Player> players = new ArrayList<Player>();
+    private ArrayList<UnseenTiles> unseenTiles = new ArrayList<UnseenTiles>();
     private Board board;
     private int playerTurn;
-    private JFrame frame = new JFrame("Scrabble Board");
+    private volatile JFrame frame;
+    private volatile StartupTimer startupTimer;
 
     public Game(int numberOfPlayers, Language language) {
+        // The word list is loaded once, shared by every player and every game, and the version current now is kept for the whole game
+        this(numberOfPlayers, language, CompletableFuture.completedFuture(SharedDictionary.forLanguage(language).current()));
+    }
+
+    /**
+     * Constructs a game whose word list may still be loading, see {@link SharedDictionary#preload(Language)}.
+     * The board window opens and the racks are drawn right away; the first word placed waits for the word list.
+     * 
+     * @param numberOfPlayers the number of players
+     * @param language the language of the game
+     * @param validWords the word list of the language, once loaded
+     */
+    public Game(int numberOfPlayers, Language language, CompletableFuture<ValidWords> validWords) {
+        this(numberOfPlayers, language, BoardLayout.CLASSIC, validWords);
+    }
+
+    /**
+     * Constructs a game on a board with the given layout, whose word list may still be loading.
+     * 
+     * @param numberOfPlayers the number of players
+     * @param language the language of the game
+     * @param layout the size and premium squares of the board
+     * @param validWords the word list of the language, once loaded
+     */
+    public Game(int numberOfPlayers, Language language, BoardLayout layout, CompletableFuture<ValidWords> validWords) {
         this.language = language;
+        this.board = new Board(layout);
+        showBoard();
         this.bag = new Bag(language);
         for (int i = 0; i<numberOfPlayers; i++){
-            players.add(new Player(language));
-            players.get(i).drawTiles(bag);
+            players.add(new Player(validWords));
+            unseenTiles.add(new UnseenTiles(language, players.get(i)::getValidWords));
+            draw(i);
         }
-        this.board = new Board();
         Random random = new Random();
         this.playerTurn = random.nextInt(numberOfPlayers);
+    }
+
+    /**
+     * Constructs a game from existing state, e.g. a restored snapshot, without opening the board window.
+     * 
+     * @param language the language of the game
+     * @param bag the bag of remaining tiles
+     * @param players the players, in turn order
+     * @param board the board
+     * @param playerTurn the index of the player whose turn it is
+     * @see GameSnapshot
+     */
+    public Game(Language language, Bag bag, ArrayList<Player> players, Board board, int playerTurn) {
+        this.language = language;
+        this.bag = bag;
+        this.players = players;
+        this.board = board;
+        this.playerTurn = playerTurn;
+        for (int i = 0; i < players.size(); i++) {
+            unseenTiles.add(UnseenTiles.of(language, board, players.get(i)));
+        }
+    }
+
+    /**
+     * Opens the window displaying the board, if it isn't already open.
+     */
+    public void showBoard() {
         SwingUtilities.invokeLater(() -> {
+            if (frame != null) {
+                return;
+            }
+            frame = new JFrame("Scrabble Board");
             board.setBackground(Color.GREEN.darker().darker());
             frame.setSize(800, 600);
             frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
             frame.getContentPane().add(board, BorderLayout.CENTER);           
+            frame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    if (startupTimer != null) {
+                        startupTimer.firstFrame();
+                    }
+                }
+            });
             frame.setVisible(true);            
         });   
-        
+    }
+
+    /**
+     * Reports the time to the first frame and to the first valid move of this game with the given timer.
+     * 
+     * @param startupTimer the timer started when the application started
+     */
+    public void setStartupTimer(StartupTimer startupTimer) {
+        this.startupTimer = startupTimer;
+        // The window may have opened before the timer was set
+        JFrame shown = frame;
+        if (shown != null && shown.isShowing()) {
+            startupTimer.firstFrame();
+        }
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+
+    public Bag getBag() {
+        return bag;
+    }
+
+    public ArrayList<Player> getPlayers() {
+        return players;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getPlayerTurn() {
+        return playerTurn;
+    }
+
+    /**
+     * Returns the tiles a player hasn't seen, kept up to date as tiles are drawn and placed.
+     * 
+     * @param player the index of the player
+     * @return the unseen tiles of the player
+     */
+    public UnseenTiles getUnseenTiles(int player) {
+        return unseenTiles.get(player);
+    }
+
+    /**
+     * Refills the rack of a player, who sees the tiles drawn.
+     */
+    private void draw(int player) {
+        ArrayList<Tile> rack = players.get(player).getTileRack();
+        int kept = rack.size();
+        players.get(player).drawTiles(bag);
+        unseenTiles.get(player).seeAll(rack.subList(kept, rack.size()));
     }
     
+    /**
+     * Plays a turn for the player whose turn it is: places the word if the placement is valid, then refills
+     * the player's rack and passes the turn. Nothing is printed, the outcome is in the returned placement.
+     * 
+     * @param word the word to place, including letters already on the board
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @return the placement, with the reason it was refused if it isn't valid (the turn then stays with the player)
+     */
+    public Placement playTurn(String word, int x, int y, boolean directionIsDown) {
+        ScrabbleEvents.Turn event = new ScrabbleEvents.Turn();
+        event.begin();
+        int player = playerTurn;
+        Placement placement;
+        if (playerHasFinished()) {
+            placement = new Placement(word, x, y, directionIsDown, "The game is over");
+        } else {
+            placement = players.get(player).place(word, x, y, directionIsDown, board);
+            if (placement.isValid()) {
+                if (startupTimer != null) {
+                    startupTimer.firstValidMove();
+                }
+                for (int other = 0; other < players.size(); other++) {
+                    if (other != player) {
+                        unseenTiles.get(other).seeAll(placement.getTiles());
+                    }
+                }
+                draw(player);
+                playerTurn = (playerTurn + 1) % players.size();
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.word = word;
+            event.valid = placement.isValid();
+            event.score = placement.getScore();
+            event.tilesPlaced = placement.getTiles().size();
+            event.bagSize = bag.getBagSize();
+            event.commit();
+        }
+        return placement;
+    }
+
+    /**
+     * Returns whether the game is over, i.e. a player has used all their tiles.
+     * 
+     * @return true if the game is over
+     */
+    public boolean isOver() {
+        return playerHasFinished();
+    }
+
     public void StartManualGame(){
         ManualGameLoop();
     }
@@ -66,7 +244,13 @@ public class Game {
             System.out.println("Does the word go downwards? (true/false):");
             boolean placingDownwards = input.nextBoolean();        
             
-            while (!players.get(playerTurn).placeWord(word, x, y, placingDownwards, board)){
+            int player = playerTurn;
+            if (!players.get(player).isReady()) {
+                System.out.println("Waiting for the word list to load...");
+            }
+            Placement placement = playTurn(word, x, y, placingDownwards);
+            while (!placement.isValid()){
+                System.out.println(placement.getReason());
                 input.nextLine();
                 System.out.println("Invalid word placement. Please try again.");
                 System.out.println(players.get(playerTurn));
@@ -78,14 +262,12 @@ public class Game {
                 y = input.nextInt();
                 System.out.println("Does the word go downwards? (true/false):");
                 placingDownwards = input.nextBoolean(); 
+                placement = playTurn(word, x, y, placingDownwards);
             }
-            SwingUtilities.invokeLater(() -> {               
-                frame.revalidate();
-                frame.repaint();
-            });  
-            System.out.println("Player " + playerTurn + "'s score is now " + players.get(playerTurn).getScore());
-            players.get(playerTurn).drawTiles(bag);
-            playerTurn = (playerTurn+1)%players.size();
+            System.out.println("Word is worth " + placement.getScore() + " points.");
+            // Only the squares covered by the new word need to be redrawn
+            board.repaintDirtySquares();
+            System.out.println("Player " + player + "'s score is now " + players.get(player).getScore());
             System.out.println("Player " + playerTurn + "'s turn");
             input.nextLine();
             
@@ -0,0 +1,806 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The {@code GameArchive} class stores finished games compactly, for keeping every game ever played.
+ * <p>
+ * Games are grouped into blocks, and each block stores the fields of its games and moves column by column, each
+ * column compressed on its own: a column holds values of the same kind, which compress far better together than
+ * interleaved with the others. Before compression, numbers are written as varints, coordinates as the difference
+ * with the previous move, directions as bits, and layouts and words as indexes into a dictionary of the block, the
+ * letters of the words as their codes in the alphabet of the language.
+ * </p>
+ * <p>
+ * A block starts with the size of each of its columns, so a {@link Reader} only reads and decompresses the columns
+ * it's asked for: adding up the scores of every move only touches the {@link Column#SCORE} column.
+ * </p>
+ * <p>
+ * File layout: a header (magic, format, language), then blocks of: the number of games and of moves, the number of
+ * columns, one entry per column (its ordinal, its size before and after compression), and the compressed columns.
+ * </p>
+ *
+ * @see GameArchiveBenchmark
+ *
+ * @author agueguen
+ */
+public class GameArchive {
+
+    private static final int MAGIC = 0x47415243; // "GARC"
+    private static final int FORMAT = 1;
+    /** Number of games per block by default */
+    public static final int GAMES_PER_BLOCK = 1024;
+
+    /**
+     * The columns of a block. The first four have a value per game, the others a value per move.
+     */
+    public enum Column {
+        /** Index of the layout of each game in {@link Block#getLayouts()} */
+        LAYOUT(false),
+        /** Number of players of each game */
+        PLAYERS(false),
+        /** Final score of each player of each game, game after game */
+        FINAL_SCORES(false),
+        /** Number of moves of each game */
+        MOVES(false),
+        /** Seat of the player of each move */
+        SEAT(true),
+        /** Column of the first letter of each move */
+        X(true),
+        /** Row of the first letter of each move */
+        Y(true),
+        /** Direction of each move, 1 down and 0 across */
+        DIRECTION(true),
+        /** Index of the word of each move in {@link Block#getWords()} */
+        WORD(true),
+        /** Tiles of each move that are blanks, as a bit per tile placed */
+        BLANKS(true),
+        /** Score of each move */
+        SCORE(true);
+
+        private final boolean perMove;
+
+        Column(boolean perMove) {
+            this.perMove = perMove;
+        }
+
+        /**
+         * Returns whether the column has a value per move rather than per game.
+         *
+         * @return true for the columns of moves
+         */
+        public boolean isPerMove() {
+            return perMove;
+        }
+    }
+
+    /**
+     * A move of an archived game.
+     */
+    public static class ArchivedMove {
+
+        private final int seat;
+        private final int x;
+        private final int y;
+        private final boolean down;
+        private final String word;
+        private final int blanks;
+        private final int score;
+
+        /**
+         * Constructs the archived move of a placement played.
+         *
+         * @param seat the seat of the player
+         * @param placement the placement played
+         */
+        public ArchivedMove(int seat, Placement placement) {
+            this.seat = seat;
+            this.x = placement.getX();
+            this.y = placement.getY();
+            this.down = placement.isDirectionDown();
+            this.word = placement.getWord();
+            int mask = 0;
+            for (int tile = 0; tile < placement.getTiles().size(); tile++) {
+                if (placement.getTiles().get(tile).isBlank()) {
+                    mask |= 1 << tile;
+                }
+            }
+            this.blanks = mask;
+            this.score = placement.getScore();
+        }
+
+        /**
+         * Constructs an archived move.
+         *
+         * @param seat the seat of the player
+         * @param x the column of the first letter
+         * @param y the row of the first letter
+         * @param down true if the word goes down
+         * @param word the word formed
+         * @param blanks the tiles placed that are blanks, a bit per tile
+         * @param score the score of the move
+         */
+        public ArchivedMove(int seat, int x, int y, boolean down, String word, int blanks, int score) {
+            this.seat = seat;
+            this.x = x;
+            this.y = y;
+            this.down = down;
+            this.word = word;
+            this.blanks = blanks;
+            this.score = score;
+        }
+
+        public int getSeat() {
+            return seat;
+        }
+
+        public int getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        public boolean isDirectionDown() {
+            return down;
+        }
+
+        public String getWord() {
+            return word;
+        }
+
+        public int getBlanks() {
+            return blanks;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArchivedMove move && seat == move.seat && x == move.x && y == move.y && down == move.down
+                    && word.equals(move.word) && blanks == move.blanks && score == move.score;
+        }
+
+        @Override
+        public int hashCode() {
+            return word.hashCode() * 31 + score;
+        }
+
+        @Override
+        public String toString() {
+            return seat + ": " + word + " at (" + x + ", " + y + ") " + (down ? "down" : "across") + " for " + score;
+        }
+    }
+
+    /**
+     * A finished game: its layout, its moves and the final score of each player.
+     */
+    public static class ArchivedGame {
+
+        private final String layout;
+        private final int[] finalScores;
+        private final ArrayList<ArchivedMove> moves;
+
+        /**
+         * Constructs an archived game.
+         *
+         * @param layout the name of the layout of the board
+         * @param finalScores the final score of each player
+         * @param moves the moves played, in order
+         */
+        public ArchivedGame(String layout, int[] finalScores, List<ArchivedMove> moves) {
+            this.layout = layout;
+            this.finalScores = finalScores.clone();
+            this.moves = new ArrayList<ArchivedMove>(moves);
+        }
+
+        public String getLayout() {
+            return layout;
+        }
+
+        public int[] getFinalScores() {
+            return finalScores.clone();
+        }
+
+        public ArrayList<ArchivedMove> getMoves() {
+            return moves;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArchivedGame game && layout.equals(game.layout) && Arrays.equals(finalScores, game.finalScores)
+                    && moves.equals(game.moves);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(finalScores) * 31 + moves.hashCode();
+        }
+    }
+
+    /**
+     * Writes games to an archive, a block at a time.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private final Alphabet alphabet;
+        private final int gamesPerBlock;
+        private final ArrayList<ArchivedGame> games = new ArrayList<ArchivedGame>();
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private long rawBytes = 0;
+
+        /**
+         * Constructs a {@code Writer} creating an archive, with {@value GameArchive#GAMES_PER_BLOCK} games per block.
+         *
+         * @param file the file of the archive, replaced if it exists
+         * @param language the language of the games
+         * @throws IOException if the file can't be written
+         */
+        public Writer(Path file, Language language) throws IOException {
+            this(file, language, GAMES_PER_BLOCK);
+        }
+
+        /**
+         * Constructs a {@code Writer} creating an archive.
+         *
+         * @param file the file of the archive, replaced if it exists
+         * @param language the language of the games
+         * @param gamesPerBlock the number of games per block: larger blocks compress better, smaller ones are held
+         * in memory for less time
+         * @throws IOException if the file can't be written
+         */
+        public Writer(Path file, Language language, int gamesPerBlock) throws IOException {
+            if (gamesPerBlock <= 0) {
+                throw new IllegalArgumentException("Blocks need at least one game: " + gamesPerBlock);
+            }
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.alphabet = language.getAlphabet();
+            this.gamesPerBlock = gamesPerBlock;
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(header);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeUTF(language.getName());
+            write(ByteBuffer.wrap(header.toByteArray()));
+        }
+
+        /**
+         * Adds a game to the archive, written with the other games of its block once the block is full.
+         *
+         * @param game the game
+         * @throws IOException if the block can't be written
+         * @throws IllegalArgumentException if a word has letters outside the alphabet of the language
+         */
+        public void add(ArchivedGame game) throws IOException {
+            games.add(game);
+            if (games.size() == gamesPerBlock) {
+                flush();
+            }
+        }
+
+        /**
+         * Writes the games added since the last block in a block of their own.
+         *
+         * @throws IOException if the block can't be written
+         */
+        public void flush() throws IOException {
+            if (games.isEmpty()) {
+                return;
+            }
+            EnumMap<Column, byte[]> columns = encode(games);
+            int moves = 0;
+            for (ArchivedGame game : games) {
+                moves += game.moves.size();
+            }
+            byte[][] compressed = new byte[columns.size()][];
+            int length = 4 + 4 + 1 + columns.size() * 9;
+            int i = 0;
+            for (byte[] column : columns.values()) {
+                compressed[i] = compress(column);
+                length += compressed[i++].length;
+                rawBytes += column.length;
+            }
+            ByteBuffer block = ByteBuffer.allocate(length);
+            block.putInt(games.size()).putInt(moves).put((byte) columns.size());
+            i = 0;
+            for (var column : columns.entrySet()) {
+                block.put((byte) column.getKey().ordinal()).putInt(column.getValue().length).putInt(compressed[i++].length);
+            }
+            for (byte[] column : compressed) {
+                block.put(column);
+            }
+            write(block.flip());
+            games.clear();
+        }
+
+        /**
+         * Returns the size of the columns written so far before compression.
+         *
+         * @return the number of bytes
+         */
+        public long getRawBytes() {
+            return rawBytes;
+        }
+
+        /**
+         * Writes the last block and closes the file.
+         *
+         * @throws IOException if the block can't be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                deflater.end();
+                channel.close();
+            }
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private byte[] compress(byte[] column) {
+            deflater.reset();
+            deflater.setInput(column);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(column.length / 4 + 16);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        }
+
+        /**
+         * Encodes the columns of a block.
+         */
+        private EnumMap<Column, byte[]> encode(List<ArchivedGame> games) {
+            EnumMap<Column, ByteArrayOutputStream> columns = new EnumMap<Column, ByteArrayOutputStream>(Column.class);
+            for (Column column : Column.values()) {
+                columns.put(column, new ByteArrayOutputStream());
+            }
+            HashMap<String, Integer> layouts = new HashMap<String, Integer>();
+            ByteArrayOutputStream layoutNames = new ByteArrayOutputStream();
+            HashMap<String, Integer> words = new HashMap<String, Integer>();
+            ByteArrayOutputStream wordLetters = new ByteArrayOutputStream();
+            int previousX = 0;
+            int previousY = 0;
+            int directions = 0;
+            int directionBits = 0;
+            for (ArchivedGame game : games) {
+                Integer layout = layouts.get(game.layout);
+                if (layout == null) {
+                    layout = layouts.size();
+                    layouts.put(game.layout, layout);
+                    byte[] name = game.layout.getBytes(StandardCharsets.UTF_8);
+                    writeVarint(layoutNames, name.length);
+                    layoutNames.writeBytes(name);
+                }
+                writeVarint(columns.get(Column.LAYOUT), layout);
+                writeVarint(columns.get(Column.PLAYERS), game.finalScores.length);
+                for (int score : game.finalScores) {
+                    writeVarint(columns.get(Column.FINAL_SCORES), zigzag(score));
+                }
+                writeVarint(columns.get(Column.MOVES), game.moves.size());
+                for (ArchivedMove move : game.moves) {
+                    writeVarint(columns.get(Column.SEAT), move.seat);
+                    writeVarint(columns.get(Column.X), zigzag(move.x - previousX));
+                    writeVarint(columns.get(Column.Y), zigzag(move.y - previousY));
+                    previousX = move.x;
+                    previousY = move.y;
+                    directions |= (move.down ? 1 : 0) << directionBits;
+                    if (++directionBits == 8) {
+                        columns.get(Column.DIRECTION).write(directions);
+                        directions = 0;
+                        directionBits = 0;
+                    }
+                    Integer word = words.get(move.word);
+                    if (word == null) {
+                        word = words.size();
+                        words.put(move.word, word);
+                        byte[] codes = alphabet.encode(move.word);
+                        for (byte code : codes) {
+                            if (code <= Alphabet.BLANK) {
+                                throw new IllegalArgumentException("Not a word of the language: " + move.word);
+                            }
+                        }
+                        writeVarint(wordLetters, codes.length);
+                        wordLetters.writeBytes(codes);
+                    }
+                    writeVarint(columns.get(Column.WORD), word);
+                    writeVarint(columns.get(Column.BLANKS), move.blanks);
+                    writeVarint(columns.get(Column.SCORE), zigzag(move.score));
+                }
+            }
+            if (directionBits > 0) {
+                columns.get(Column.DIRECTION).write(directions);
+            }
+
+            EnumMap<Column, byte[]> encoded = new EnumMap<Column, byte[]>(Column.class);
+            for (var column : columns.entrySet()) {
+                encoded.put(column.getKey(), column.getValue().toByteArray());
+            }
+            // The dictionaries come first in the columns using them
+            encoded.put(Column.LAYOUT, withDictionary(layouts.size(), layoutNames, encoded.get(Column.LAYOUT)));
+            encoded.put(Column.WORD, withDictionary(words.size(), wordLetters, encoded.get(Column.WORD)));
+            return encoded;
+        }
+
+        private static byte[] withDictionary(int size, ByteArrayOutputStream dictionary, byte[] indexes) {
+            ByteArrayOutputStream column = new ByteArrayOutputStream(dictionary.size() + indexes.length + 5);
+            writeVarint(column, size);
+            column.writeBytes(dictionary.toByteArray());
+            column.writeBytes(indexes);
+            return column.toByteArray();
+        }
+    }
+
+    /**
+     * The columns of a block read from an archive. Only the columns asked for are there.
+     */
+    public static class Block {
+
+        private final int games;
+        private final int moves;
+        private final EnumMap<Column, int[]> columns = new EnumMap<Column, int[]>(Column.class);
+        private String[] layouts;
+        private String[] words;
+
+        private Block(int games, int moves) {
+            this.games = games;
+            this.moves = moves;
+        }
+
+        /**
+         * Returns the number of games of the block.
+         *
+         * @return the number of games
+         */
+        public int getGames() {
+            return games;
+        }
+
+        /**
+         * Returns the number of moves of the block.
+         *
+         * @return the number of moves
+         */
+        public int getMoves() {
+            return moves;
+        }
+
+        /**
+         * Returns the values of a column: one per game or per move, except for {@link Column#FINAL_SCORES} with one
+         * per player of each game.
+         *
+         * @param column the column
+         * @return the values of the column
+         * @throws IllegalArgumentException if the column wasn't read
+         */
+        public int[] get(Column column) {
+            int[] values = columns.get(column);
+            if (values == null) {
+                throw new IllegalArgumentException("Column " + column + " wasn't read");
+            }
+            return values;
+        }
+
+        /**
+         * Returns the layouts {@link Column#LAYOUT} refers to.
+         *
+         * @return the names of the layouts of the block
+         * @throws IllegalArgumentException if the column wasn't read
+         */
+        public String[] getLayouts() {
+            get(Column.LAYOUT);
+            return layouts;
+        }
+
+        /**
+         * Returns the words {@link Column#WORD} refers to.
+         *
+         * @return the distinct words of the block
+         * @throws IllegalArgumentException if the column wasn't read
+         */
+        public String[] getWords() {
+            get(Column.WORD);
+            return words;
+        }
+
+        /**
+         * Rebuilds the games of the block. Every column must have been read.
+         *
+         * @return the games
+         * @throws IllegalArgumentException if a column wasn't read
+         */
+        public ArrayList<ArchivedGame> toGames() {
+            int[] layout = get(Column.LAYOUT);
+            int[] players = get(Column.PLAYERS);
+            int[] finalScores = get(Column.FINAL_SCORES);
+            int[] moveCounts = get(Column.MOVES);
+            int[] seat = get(Column.SEAT);
+            int[] x = get(Column.X);
+            int[] y = get(Column.Y);
+            int[] direction = get(Column.DIRECTION);
+            int[] word = get(Column.WORD);
+            int[] blanks = get(Column.BLANKS);
+            int[] score = get(Column.SCORE);
+            ArrayList<ArchivedGame> rebuilt = new ArrayList<ArchivedGame>(games);
+            int player = 0;
+            int move = 0;
+            for (int game = 0; game < games; game++) {
+                ArrayList<ArchivedMove> gameMoves = new ArrayList<ArchivedMove>(moveCounts[game]);
+                for (int i = 0; i < moveCounts[game]; i++, move++) {
+                    gameMoves.add(new ArchivedMove(seat[move], x[move], y[move], direction[move] != 0, words[word[move]], blanks[move], score[move]));
+                }
+                rebuilt.add(new ArchivedGame(layouts[layout[game]], Arrays.copyOfRange(finalScores, player, player + players[game]), gameMoves));
+                player += players[game];
+            }
+            return rebuilt;
+        }
+    }
+
+    /**
+     * Reads the blocks of an archive, decompressing only the columns asked for.
+     */
+    public static class Reader implements Closeable {
+
+        private final FileChannel channel;
+        private final String language;
+        private final Alphabet alphabet;
+        private final Inflater inflater = new Inflater();
+
+        /**
+         * Constructs a {@code Reader} of an archive.
+         *
+         * @param file the file of the archive
+         * @throws IOException if the file can't be read or isn't an archive
+         */
+        public Reader(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                    throw new IOException(file + " isn't a game archive");
+                }
+                this.language = in.readUTF();
+                this.alphabet = new Language(language).getAlphabet();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the language of the games of the archive.
+         *
+         * @return the name of the language
+         */
+        public String getLanguage() {
+            return language;
+        }
+
+        /**
+         * Reads every block of the archive from the start, with only the given columns.
+         *
+         * @param columns the columns to read
+         * @param action called with each block
+         * @throws IOException if the archive can't be read
+         */
+        public void scan(EnumSet<Column> columns, Consumer<Block> action) throws IOException {
+            channel.position(0);
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            in.readInt();
+            in.readInt();
+            in.readUTF();
+            ByteBuffer header = ByteBuffer.allocate(9);
+            while (read(header.clear())) {
+                header.flip();
+                Block block = new Block(header.getInt(), header.getInt());
+                int count = header.get();
+                ByteBuffer directory = ByteBuffer.allocate(count * 9);
+                if (!read(directory)) {
+                    throw new EOFException("Game archive cut short");
+                }
+                directory.flip();
+                for (int i = 0; i < count; i++) {
+                    Column column = Column.values()[directory.get()];
+                    int rawLength = directory.getInt();
+                    int length = directory.getInt();
+                    if (!columns.contains(column)) {
+                        channel.position(channel.position() + length);
+                        continue;
+                    }
+                    ByteBuffer compressed = ByteBuffer.allocate(length);
+                    if (!read(compressed)) {
+                        throw new EOFException("Game archive cut short");
+                    }
+                    decode(block, column, inflate(compressed.array(), rawLength));
+                }
+                action.accept(block);
+            }
+        }
+
+        /**
+         * Reads every game of the archive.
+         *
+         * @return the games, in the order they were added
+         * @throws IOException if the archive can't be read
+         */
+        public ArrayList<ArchivedGame> readGames() throws IOException {
+            ArrayList<ArchivedGame> games = new ArrayList<ArchivedGame>();
+            scan(EnumSet.allOf(Column.class), block -> games.addAll(block.toGames()));
+            return games;
+        }
+
+        @Override
+        public void close() throws IOException {
+            inflater.end();
+            channel.close();
+        }
+
+        /**
+         * Fills a buffer from the file.
+         *
+         * @return false at the end of the file, before the buffer got any byte
+         */
+        private boolean read(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    if (buffer.position() == 0) {
+                        return false;
+                    }
+                    throw new EOFException("Game archive cut short");
+                }
+            }
+            return true;
+        }
+
+        private byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+            inflater.reset();
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            try {
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    length += inflater.inflate(raw, length, rawLength - length);
+                }
+                if (length < rawLength) {
+                    throw new IOException("Corrupt game archive column");
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt game archive column", e);
+            }
+            return raw;
+        }
+
+        /**
+         * Decodes a column into a block.
+         */
+        private void decode(Block block, Column column, byte[] raw) {
+            int[] position = {0};
+            switch (column) {
+                case LAYOUT -> {
+                    block.layouts = new String[readVarint(raw, position)];
+                    for (int i = 0; i < block.layouts.length; i++) {
+                        int length = readVarint(raw, position);
+                        block.layouts[i] = new String(raw, position[0], length, StandardCharsets.UTF_8);
+                        position[0] += length;
+                    }
+                }
+                case WORD -> {
+                    block.words = new String[readVarint(raw, position)];
+                    for (int i = 0; i < block.words.length; i++) {
+                        char[] letters = new char[readVarint(raw, position)];
+                        for (int letter = 0; letter < letters.length; letter++) {
+                            letters[letter] = alphabet.decode(raw[position[0]++]);
+                        }
+                        block.words[i] = new String(letters);
+                    }
+                }
+                case DIRECTION -> {
+                    int[] values = new int[block.moves];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = (raw[i >> 3] >> (i & 7)) & 1;
+                    }
+                    block.columns.put(column, values);
+                    return;
+                }
+                default -> {
+                }
+            }
+            int[] values;
+            if (column == Column.FINAL_SCORES) {
+                // As many values as the column holds
+                int[] scores = new int[16];
+                int count = 0;
+                while (position[0] < raw.length) {
+                    if (count == scores.length) {
+                        scores = Arrays.copyOf(scores, count * 2);
+                    }
+                    scores[count++] = unzigzag(readVarint(raw, position));
+                }
+                values = Arrays.copyOf(scores, count);
+            } else {
+                values = new int[column.isPerMove() ? block.moves : block.games];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = readVarint(raw, position);
+                }
+                if (column == Column.X || column == Column.Y || column == Column.SCORE) {
+                    int previous = 0;
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = unzigzag(values[i]);
+                        if (column != Column.SCORE) {
+                            values[i] += previous;
+                            previous = values[i];
+                        }
+                    }
+                }
+            }
+            block.columns.put(column, values);
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] in, int[] position) {
+        int value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Maps signed values to unsigned ones, small in absolute value to small, so they make short varints.
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
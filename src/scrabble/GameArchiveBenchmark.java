@@ -0,0 +1,191 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Compares a {@link GameArchive} with a plain move log, a line of text per move, for the same games: the size of
+ * the files, and how fast they're scanned to add up the scores of every move or to read every game back.
+ * <p>
+ * The games are played between players always choosing the best move, so their words and scores look like real ones.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.GameArchiveBenchmark [language] [games] [output directory]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class GameArchiveBenchmark {
+
+    /**
+     * @param args the language, the number of games to play and the directory the files are written to
+     * @throws IOException if the files can't be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int numberOfGames = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        Path output = Path.of(args.length > 2 ? args[2] : ".");
+        ValidWords validWords = SharedDictionary.forLanguage(language).current();
+        OpeningBook openingBook = new OpeningBook(validWords, language, BoardLayout.CLASSIC);
+
+        long start = System.nanoTime();
+        List<GameArchive.ArchivedGame> games = IntStream.range(0, numberOfGames).parallel()
+                .mapToObj(game -> playGame(language, validWords, openingBook))
+                .toList();
+        long moves = games.stream().mapToLong(game -> game.getMoves().size()).sum();
+        System.out.printf("%d games, %d moves played in %.1f s%n", games.size(), moves, (System.nanoTime() - start) / 1e9);
+
+        Path log = output.resolve(language.getName() + ".moves.log");
+        Path archive = output.resolve(language.getName() + ".games");
+        writeLog(log, games);
+        long raw;
+        try (GameArchive.Writer writer = new GameArchive.Writer(archive, language)) {
+            for (GameArchive.ArchivedGame game : games) {
+                writer.add(game);
+            }
+            writer.flush();
+            raw = writer.getRawBytes();
+        }
+        long logSize = Files.size(log);
+        long archiveSize = Files.size(archive);
+        System.out.printf("move log %d bytes (%.1f per move), archive %d bytes (%.1f per move, %d before compression): %.1fx smaller%n",
+                logSize, (double) logSize / moves, archiveSize, (double) archiveSize / moves, raw, (double) logSize / archiveSize);
+
+        try (GameArchive.Reader reader = new GameArchive.Reader(archive)) {
+            if (!reader.readGames().equals(games)) {
+                System.out.println("The games read back from the archive differ from the games written");
+            }
+            for (int round = 0; round < 5; round++) {
+                // Adding up the scores
+                start = System.nanoTime();
+                long logTotal = scoreLog(log);
+                double logScan = (System.nanoTime() - start) / 1e6;
+                long[] archiveTotal = {0};
+                start = System.nanoTime();
+                reader.scan(EnumSet.of(GameArchive.Column.SCORE), block -> {
+                    for (int score : block.get(GameArchive.Column.SCORE)) {
+                        archiveTotal[0] += score;
+                    }
+                });
+                double archiveScan = (System.nanoTime() - start) / 1e6;
+                // Reading every game back
+                start = System.nanoTime();
+                int logGames = readLog(log).size();
+                double logRead = (System.nanoTime() - start) / 1e6;
+                start = System.nanoTime();
+                int archiveGames = reader.readGames().size();
+                double archiveRead = (System.nanoTime() - start) / 1e6;
+                if (logTotal != archiveTotal[0] || logGames != archiveGames) {
+                    System.out.println("The move log and the archive don't hold the same games");
+                }
+                System.out.printf("scores: log %.1f ms (%.1f M moves/s), archive %.1f ms (%.1f M moves/s); "
+                        + "all games: log %.1f ms, archive %.1f ms%n",
+                        logScan, moves / logScan / 1e3, archiveScan, moves / archiveScan / 1e3, logRead, archiveRead);
+            }
+        }
+    }
+
+    /**
+     * Plays a game between two players always choosing the best move, until the game is over or the player to move
+     * has no move.
+     */
+    private static GameArchive.ArchivedGame playGame(Language language, ValidWords validWords, OpeningBook openingBook) {
+        Bag bag = new Bag(language);
+        ArrayList<Player> players = new ArrayList<Player>(2);
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player(validWords);
+            player.drawTiles(bag);
+            players.add(player);
+        }
+        Game game = new Game(language, bag, players, new Board(BoardLayout.CLASSIC), 0);
+        ArrayList<GameArchive.ArchivedMove> moves = new ArrayList<GameArchive.ArchivedMove>();
+        while (!game.isOver()) {
+            int seat = game.getPlayerTurn();
+            Placement best = openingBook.best(game.getBoard(), players.get(seat).getTileRack());
+            if (best == null) {
+                break;
+            }
+            moves.add(new GameArchive.ArchivedMove(seat, game.playTurn(best.getWord(), best.getX(), best.getY(), best.isDirectionDown())));
+        }
+        int[] scores = new int[players.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = players.get(i).getScore();
+        }
+        return new GameArchive.ArchivedGame(BoardLayout.CLASSIC.getName(), scores, moves);
+    }
+
+    /**
+     * Writes the games as a plain move log: a line per game with its layout and final scores, then a line per move.
+     */
+    private static void writeLog(Path log, List<GameArchive.ArchivedGame> games) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(log, StandardCharsets.UTF_8))) {
+            for (GameArchive.ArchivedGame game : games) {
+                out.print("game " + game.getLayout());
+                for (int score : game.getFinalScores()) {
+                    out.print(" " + score);
+                }
+                out.println();
+                for (GameArchive.ArchivedMove move : game.getMoves()) {
+                    out.println(move.getSeat() + " " + move.getX() + " " + move.getY() + " " + (move.isDirectionDown() ? "down" : "across")
+                            + " " + move.getWord() + " " + move.getBlanks() + " " + move.getScore());
+                }
+            }
+        }
+    }
+
+    private static long scoreLog(Path log) throws IOException {
+        long total = 0;
+        try (BufferedReader in = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.startsWith("game ")) {
+                    total += Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1));
+                }
+            }
+        }
+        return total;
+    }
+
+    private static ArrayList<GameArchive.ArchivedGame> readLog(Path log) throws IOException {
+        ArrayList<GameArchive.ArchivedGame> games = new ArrayList<GameArchive.ArchivedGame>();
+        try (BufferedReader in = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String layout = null;
+            int[] scores = null;
+            ArrayList<GameArchive.ArchivedMove> moves = new ArrayList<GameArchive.ArchivedMove>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = line.split(" ");
+                if (fields[0].equals("game")) {
+                    if (layout != null) {
+                        games.add(new GameArchive.ArchivedGame(layout, scores, moves));
+                        moves.clear();
+                    }
+                    layout = fields[1];
+                    scores = new int[fields.length - 2];
+                    for (int i = 0; i < scores.length; i++) {
+                        scores[i] = Integer.parseInt(fields[i + 2]);
+                    }
+                } else {
+                    moves.add(new GameArchive.ArchivedMove(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                            fields[3].equals("down"), fields[4], Integer.parseInt(fields[5]), Integer.parseInt(fields[6])));
+                }
+            }
+            if (layout != null) {
+                games.add(new GameArchive.ArchivedGame(layout, scores, moves));
+            }
+        }
+        return games;
+    }
+}
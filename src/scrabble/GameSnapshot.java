@@ -0,0 +1,245 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * The {@code GameSnapshot} class saves the complete state of a {@code Game} in a compact binary form and restores it.
+ * <p>
+ * A snapshot holds the board letters and blank flags, each player's rack and score, the bag contents and
+ * the state of its random number generator, and whose turn it is. It does not hold the word list or the
+ * language configuration: these are passed in already loaded when restoring, so a snapshot is restored
+ * without reading any other file.
+ * </p>
+ * <p>
+ * Layout (big-endian): magic "SCRB", format version, language name, player turn, the board layout (its name and
+ * rows, see {@link BoardLayout}), one letter per square ('\0' when empty) followed by a one bit per square blank mask,
+ * the players' scores and racks, then the bag tiles and its generator state. Letters are stored as chars, blanks
+ * on a rack as ' ', strings as a short length followed by UTF-8 bytes. Snapshots of version 1, saved before
+ * layouts could be chosen, have no layout and are restored on the classic board.
+ * </p>
+ *
+ * @see Game
+ *
+ * @author agueguen
+ */
+public class GameSnapshot {
+
+    private static final int MAGIC = 0x53435242; // "SCRB"
+    private static final byte VERSION = 2;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Encodes the state of a game into a buffer, ready to be read.
+     *
+     * @param game the game to save
+     * @return the snapshot of the game
+     */
+    public static ByteBuffer encode(Game game) {
+        byte[] languageName = game.getLanguage().getName().getBytes(StandardCharsets.UTF_8);
+        Board board = game.getBoard();
+        int squares = board.getBoardSize() * board.getBoardSize();
+        byte[] layoutName = board.getBoardLayout().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] layoutRows = board.getBoardLayout().toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(64 + languageName.length + layoutName.length + layoutRows.length + squares * 2 + squares / 8
+                + game.getPlayers().size() * 19 + game.getBag().getBagSize() * 2);
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.putShort((short) languageName.length);
+        buffer.put(languageName);
+        buffer.put((byte) game.getPlayerTurn());
+        buffer.putShort((short) layoutName.length);
+        buffer.put(layoutName);
+        buffer.putShort((short) layoutRows.length);
+        buffer.put(layoutRows);
+
+        long[] blanks = new long[(squares + 63) / 64];
+        for (int square = 0; square < squares; square++) {
+            buffer.putChar(board.getLetter(square));
+            Tile tile = board.getTile(square);
+            if (tile != null && tile.isBlank()) {
+                blanks[square >> 6] |= 1L << square;
+            }
+        }
+        for (long mask : blanks) {
+            buffer.putLong(mask);
+        }
+
+        buffer.put((byte) game.getPlayers().size());
+        for (Player player : game.getPlayers()) {
+            buffer.putInt(player.getScore());
+            buffer.put((byte) player.getTileRack().size());
+            for (Tile tile : player.getTileRack()) {
+                buffer.putChar(tile.getLetter());
+            }
+        }
+
+        Bag bag = game.getBag();
+        buffer.putShort((short) (int) bag.getBagSize());
+        for (int i = 0; i < bag.getBagSize(); i++) {
+            buffer.putChar(bag.get(i).getLetter());
+        }
+        buffer.putLong(bag.getRngState());
+        return buffer.flip();
+    }
+
+    /**
+     * Restores a game from a snapshot. The game's window isn't opened, see {@link Game#showBoard()}.
+     *
+     * @param buffer the snapshot, as returned by {@link #encode(Game)}
+     * @param language the language of the saved game
+     * @param validWords the valid words the players check their words against
+     * @return the restored game
+     * @throws IllegalArgumentException if the buffer isn't a snapshot, or a snapshot of a game in another language
+     */
+    public static Game decode(ByteBuffer buffer, Language language, ValidWords validWords) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        byte version = buffer.get();
+        if (version < 1 || version > VERSION) {
+            throw new IllegalArgumentException("Snapshot of an unsupported version: " + version);
+        }
+        byte[] languageName = new byte[buffer.getShort()];
+        buffer.get(languageName);
+        String name = new String(languageName, StandardCharsets.UTF_8);
+        if (!name.equals(language.getName())) {
+            throw new IllegalArgumentException("Snapshot is of a game in " + name + ", not " + language.getName());
+        }
+        int playerTurn = buffer.get();
+
+        BoardLayout layout = BoardLayout.CLASSIC;
+        if (version >= 2) {
+            String layoutName = getString(buffer);
+            layout = BoardLayout.parse(layoutName, getString(buffer).lines().toList());
+        }
+        Board board = new Board(layout);
+        int size = board.getBoardSize();
+        char[] letters = new char[size * size];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = buffer.getChar();
+        }
+        long[] blanks = new long[(letters.length + 63) / 64];
+        for (int i = 0; i < blanks.length; i++) {
+            blanks[i] = buffer.getLong();
+        }
+        for (int i = 0; i < letters.length; i++) {
+            if (letters[i] != '\0') {
+                boolean blank = (blanks[i >> 6] & (1L << i)) != 0;
+                board.placeTile(i % size, i / size, language.getTile(blank ? ' ' : letters[i]), letters[i]);
+            }
+        }
+
+        int numberOfPlayers = buffer.get();
+        ArrayList<Player> players = new ArrayList<Player>(numberOfPlayers);
+        for (int p = 0; p < numberOfPlayers; p++) {
+            int score = buffer.getInt();
+            int rackSize = buffer.get();
+            ArrayList<Tile> rack = new ArrayList<Tile>(7);
+            for (int i = 0; i < rackSize; i++) {
+                rack.add(language.getTile(buffer.getChar()));
+            }
+            players.add(new Player(validWords, rack, score));
+        }
+
+        int bagSize = buffer.getShort();
+        ArrayList<Tile> tiles = new ArrayList<Tile>(bagSize);
+        for (int i = 0; i < bagSize; i++) {
+            tiles.add(language.getTile(buffer.getChar()));
+        }
+        Bag bag = new Bag(tiles, buffer.getLong());
+        return new Game(language, bag, players, board, playerTurn);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a snapshot of a game to a channel.
+     *
+     * @param game the game to save
+     * @param channel the channel to write to
+     * @throws IOException if the snapshot can't be written
+     */
+    public static void write(Game game, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = encode(game);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a channel until its end and restores the game.
+     *
+     * @param channel the channel to read from
+     * @param language the language of the saved game
+     * @param validWords the valid words the players check their words against
+     * @return the restored game
+     * @throws IOException if the snapshot can't be read
+     */
+    public static Game read(ReadableByteChannel channel, Language language, ValidWords validWords) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(2048);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+            }
+        }
+        return decode(buffer.flip(), language, validWords);
+    }
+
+    /**
+     * Saves a game to a file. The snapshot is first written next to the file then moved over it,
+     * so a crash while saving never leaves a truncated snapshot behind.
+     *
+     * @param game the game to save
+     * @param file the file to save the game to
+     * @throws IOException if the file can't be written
+     */
+    public static void save(Game game, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(game, channel);
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Restores a game saved with {@link #save(Game, Path)}.
+     *
+     * @param file the file the game was saved to
+     * @param language the language of the saved game
+     * @param validWords the valid words the players check their words against
+     * @return the restored game
+     * @throws IOException if the file can't be read
+     */
+    public static Game load(Path file, Language language, ValidWords validWords) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+            return decode(buffer.flip(), language, validWords);
+        }
+    }
+}
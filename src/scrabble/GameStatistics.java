@@ -0,0 +1,611 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * The {@code GameStatistics} class aggregates statistics over any number of games: average scores per seat,
+ * bingo rates, score distributions, how often each square of a layout gets a tile (a heatmap of premium square usage),
+ * the most played words and how many points each language gets out of the face value of its tiles.
+ * <p>
+ * Statistics are fed with a stream of events, a {@link Move} for each placement played and a {@link Result} for each
+ * finished game. They take the same memory however many games are aggregated: scores go into fixed histograms,
+ * words into a {@link CountMinSketch} plus a short list of candidates for the most played ones, and the rest is
+ * counted per seat, per layout and per language. Two {@code GameStatistics} merge into one, so a parallel stream
+ * aggregates with one accumulator per thread, see {@link #collector()}.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.GameStatistics [language] [games] [output directory] [layout file]} plays games between
+ * players always choosing the best move, and writes their statistics as CSV files and a JSON summary.
+ * </p>
+ *
+ * @see CountMinSketch
+ *
+ * @author agueguen
+ */
+public class GameStatistics {
+
+    // Number of words kept as candidates for the most played ones
+    private static final int TOP_WORDS = 100;
+    private static final int SKETCH_WIDTH = 1 << 13;
+    private static final int SKETCH_DEPTH = 4;
+
+    private long games = 0;
+    private long moves = 0;
+    private long bingos = 0;
+    private long[] seatGames = new long[0];
+    private long[] seatScores = new long[0];
+    private long[] seatWins = new long[0];
+    private long[] seatMoves = new long[0];
+    private long[] seatBingos = new long[0];
+    private final Histogram moveScores = new Histogram(10, 20);
+    private final Histogram finalScores = new Histogram(50, 20);
+    private final HashMap<String, Heatmap> heatmaps = new HashMap<String, Heatmap>();
+    private final HashMap<String, LanguageTotals> languages = new HashMap<String, LanguageTotals>();
+    private final CountMinSketch words = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+    // Candidates for the most played words, with their estimated count when last seen
+    private final HashMap<String, Long> topWords = new HashMap<String, Long>();
+    // Smallest estimate among the candidates once the list is full: words counted less often can't enter it
+    private long topWordsThreshold = 0;
+
+    /**
+     * Returns a collector aggregating a stream of events. A parallel stream aggregates each part in its own
+     * {@code GameStatistics} and merges them at the end.
+     *
+     * @return the collector
+     */
+    public static Collector<Event, GameStatistics, GameStatistics> collector() {
+        return Collector.of(GameStatistics::new, GameStatistics::add, GameStatistics::merge, Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * @param args the language, the number of games, the output directory and the board layout file
+     * @throws IOException if the statistics or the layout can't be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int numberOfGames = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        Path output = Path.of(args.length > 2 ? args[2] : "statistics");
+        BoardLayout layout = args.length > 3 ? BoardLayout.load(Path.of(args[3])) : BoardLayout.CLASSIC;
+        ValidWords validWords = SharedDictionary.forLanguage(language).current();
+        // First moves are searched once per rack
+        OpeningBook openingBook = new OpeningBook(validWords, language, layout);
+
+        long start = System.nanoTime();
+        // Games are played as the stream is consumed, only the events of the games in progress are held
+        GameStatistics statistics = IntStream.range(0, numberOfGames).parallel()
+                .mapToObj(game -> playGame(language, validWords, openingBook, layout))
+                .flatMap(List::stream)
+                .collect(collector());
+        System.out.printf(Locale.ROOT, "%d games, %d moves in %.1f s%n", statistics.getGames(), statistics.getMoves(), (System.nanoTime() - start) / 1e9);
+        for (int seat = 0; seat < statistics.seatGames.length; seat++) {
+            System.out.printf(Locale.ROOT, "Seat %d: %.1f points on average, %.1f%% of wins%n", seat, statistics.getAverageScore(seat), 100 * statistics.getWinRate(seat));
+        }
+        System.out.printf(Locale.ROOT, "Bingos: %.2f%% of moves%n", 100 * statistics.getBingoRate());
+        System.out.println("Most played words: " + statistics.getTopWords(10));
+        statistics.writeCsv(output);
+        Files.writeString(output.resolve("summary.json"), statistics.toJson(), StandardCharsets.UTF_8);
+        System.out.println("Statistics written to " + output);
+    }
+
+    /**
+     * Plays a game between two players always choosing the best move, until the game is over or the player to move
+     * has no move.
+     *
+     * @return the events of the game
+     */
+    private static List<Event> playGame(Language language, ValidWords validWords, OpeningBook openingBook, BoardLayout layout) {
+        Bag bag = new Bag(language);
+        ArrayList<Player> players = new ArrayList<Player>(2);
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player(validWords);
+            player.drawTiles(bag);
+            players.add(player);
+        }
+        Game game = new Game(language, bag, players, new Board(layout), 0);
+        ArrayList<Event> events = new ArrayList<Event>();
+        while (!game.isOver()) {
+            int seat = game.getPlayerTurn();
+            Placement best = openingBook.best(game.getBoard(), players.get(seat).getTileRack());
+            if (best == null) {
+                break;
+            }
+            Placement played = game.playTurn(best.getWord(), best.getX(), best.getY(), best.isDirectionDown());
+            events.add(new Move(language, layout, seat, played));
+        }
+        int[] scores = new int[players.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = players.get(i).getScore();
+        }
+        events.add(new Result(language, scores));
+        return events;
+    }
+
+    /**
+     * Adds an event to the statistics.
+     *
+     * @param event the move or the result of a game
+     */
+    public void add(Event event) {
+        event.addTo(this);
+    }
+
+    /**
+     * Adds a move. Invalid placements aren't counted.
+     */
+    private void addMove(Move move) {
+        Placement placement = move.placement;
+        if (!placement.isValid()) {
+            return;
+        }
+        growSeats(move.seat + 1);
+        moves++;
+        seatMoves[move.seat]++;
+        if (placement.isBingo()) {
+            bingos++;
+            seatBingos[move.seat]++;
+        }
+        moveScores.add(placement.getScore());
+
+        Heatmap heatmap = heatmaps.computeIfAbsent(move.layout.getName(), name -> new Heatmap(move.layout));
+        for (int square : placement.getSquares()) {
+            heatmap.tiles[square]++;
+        }
+
+        LanguageTotals totals = languages.computeIfAbsent(move.language, name -> new LanguageTotals());
+        totals.moves++;
+        totals.points += placement.getScore();
+        totals.tiles += placement.getTiles().size();
+        for (Tile tile : placement.getTiles()) {
+            totals.faceValue += tile.getValue();
+        }
+
+        countWord(placement.getWord());
+    }
+
+    /**
+     * Adds the result of a game; the seats with the highest score win.
+     */
+    private void addResult(Result result) {
+        int[] scores = result.scores;
+        growSeats(scores.length);
+        games++;
+        int best = Arrays.stream(scores).max().orElse(0);
+        for (int seat = 0; seat < scores.length; seat++) {
+            seatGames[seat]++;
+            seatScores[seat] += scores[seat];
+            if (scores[seat] == best) {
+                seatWins[seat]++;
+            }
+            finalScores.add(scores[seat]);
+        }
+        languages.computeIfAbsent(result.language, name -> new LanguageTotals()).games++;
+    }
+
+    /**
+     * Counts a played word in the sketch, and keeps it as a candidate for the most played words if it's counted
+     * more often than the least played candidate.
+     */
+    private void countWord(String word) {
+        long estimate = words.add(word, 1);
+        if (topWords.containsKey(word) || topWords.size() < TOP_WORDS) {
+            topWords.put(word, estimate);
+        } else if (estimate > topWordsThreshold) {
+            topWords.values().remove(topWordsThreshold);
+            topWords.put(word, estimate);
+        } else {
+            return;
+        }
+        if (topWords.size() == TOP_WORDS) {
+            topWordsThreshold = topWords.values().stream().mapToLong(Long::longValue).min().orElse(0);
+        }
+    }
+
+    /**
+     * Adds the statistics of another {@code GameStatistics} to these.
+     *
+     * @param other the statistics to add
+     * @return these statistics
+     */
+    public GameStatistics merge(GameStatistics other) {
+        growSeats(other.seatGames.length);
+        games += other.games;
+        moves += other.moves;
+        bingos += other.bingos;
+        for (int seat = 0; seat < other.seatGames.length; seat++) {
+            seatGames[seat] += other.seatGames[seat];
+            seatScores[seat] += other.seatScores[seat];
+            seatWins[seat] += other.seatWins[seat];
+            seatMoves[seat] += other.seatMoves[seat];
+            seatBingos[seat] += other.seatBingos[seat];
+        }
+        moveScores.merge(other.moveScores);
+        finalScores.merge(other.finalScores);
+        other.heatmaps.forEach((name, heatmap) -> heatmaps.computeIfAbsent(name, n -> new Heatmap(heatmap.layout)).merge(heatmap));
+        other.languages.forEach((name, totals) -> languages.computeIfAbsent(name, n -> new LanguageTotals()).merge(totals));
+
+        // The candidates of both sides are estimated again from the merged sketch, and the best ones kept
+        words.merge(other.words);
+        HashMap<String, Long> candidates = new HashMap<String, Long>(topWords);
+        candidates.putAll(other.topWords);
+        topWords.clear();
+        candidates.keySet().stream()
+                .sorted(Comparator.comparingLong(words::estimate).reversed().thenComparing(Comparator.naturalOrder()))
+                .limit(TOP_WORDS)
+                .forEach(word -> topWords.put(word, words.estimate(word)));
+        topWordsThreshold = topWords.size() == TOP_WORDS ? topWords.values().stream().mapToLong(Long::longValue).min().orElse(0) : 0;
+        return this;
+    }
+
+    private void growSeats(int seats) {
+        if (seats > seatGames.length) {
+            seatGames = Arrays.copyOf(seatGames, seats);
+            seatScores = Arrays.copyOf(seatScores, seats);
+            seatWins = Arrays.copyOf(seatWins, seats);
+            seatMoves = Arrays.copyOf(seatMoves, seats);
+            seatBingos = Arrays.copyOf(seatBingos, seats);
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the share of moves using all 7 tiles of the rack.
+     *
+     * @return the bingo rate, from 0 to 1
+     */
+    public double getBingoRate() {
+        return moves == 0 ? 0 : (double) bingos / moves;
+    }
+
+    /**
+     * Returns the average final score of a seat.
+     *
+     * @param seat the seat, 0 for the player playing first
+     * @return the average score, 0 if no game was played from that seat
+     */
+    public double getAverageScore(int seat) {
+        return seat >= seatGames.length || seatGames[seat] == 0 ? 0 : (double) seatScores[seat] / seatGames[seat];
+    }
+
+    /**
+     * Returns the share of games won from a seat, ties counting as a win for every seat tied.
+     *
+     * @param seat the seat, 0 for the player playing first
+     * @return the win rate, from 0 to 1
+     */
+    public double getWinRate(int seat) {
+        return seat >= seatGames.length || seatGames[seat] == 0 ? 0 : (double) seatWins[seat] / seatGames[seat];
+    }
+
+    /**
+     * Returns the estimated number of times a word was played, never less than the true number.
+     *
+     * @param word the word
+     * @return the estimated count
+     */
+    public long getWordCount(String word) {
+        return words.estimate(word);
+    }
+
+    /**
+     * Returns the most played words with their estimated counts, from the most played.
+     *
+     * @param count the number of words wanted, up to 100
+     * @return the words and their counts
+     */
+    public List<Map.Entry<String, Long>> getTopWords(int count) {
+        return topWords.keySet().stream()
+                .map(word -> Map.entry(word, words.estimate(word)))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .toList();
+    }
+
+    /**
+     * Writes the statistics as CSV files in a directory, created if needed: seats.csv, move-scores.csv,
+     * final-scores.csv, words.csv, languages.csv, and for each layout heatmap-&lt;layout&gt;.csv (tiles placed on
+     * each square) and premiums-&lt;layout&gt;.csv (tiles placed on each kind of square).
+     *
+     * @param directory the directory to write to
+     * @throws IOException if a file can't be written
+     */
+    public void writeCsv(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (PrintWriter out = csv(directory, "seats.csv")) {
+            out.println("seat,games,average_score,wins,moves,bingos");
+            for (int seat = 0; seat < seatGames.length; seat++) {
+                out.printf(Locale.ROOT, "%d,%d,%.2f,%d,%d,%d%n", seat, seatGames[seat], getAverageScore(seat), seatWins[seat], seatMoves[seat], seatBingos[seat]);
+            }
+        }
+        try (PrintWriter out = csv(directory, "move-scores.csv")) {
+            moveScores.writeCsv(out);
+        }
+        try (PrintWriter out = csv(directory, "final-scores.csv")) {
+            finalScores.writeCsv(out);
+        }
+        try (PrintWriter out = csv(directory, "words.csv")) {
+            out.println("word,estimated_count");
+            for (Map.Entry<String, Long> word : getTopWords(TOP_WORDS)) {
+                out.println(word.getKey() + "," + word.getValue());
+            }
+        }
+        try (PrintWriter out = csv(directory, "languages.csv")) {
+            out.println("language,games,moves,points,tiles,face_value,points_per_tile,points_per_face_value");
+            for (Map.Entry<String, LanguageTotals> entry : new TreeMap<String, LanguageTotals>(languages).entrySet()) {
+                LanguageTotals totals = entry.getValue();
+                out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%d,%.3f,%.3f%n", entry.getKey(), totals.games, totals.moves, totals.points,
+                        totals.tiles, totals.faceValue, totals.getPointsPerTile(), totals.getEfficiency());
+            }
+        }
+        for (Map.Entry<String, Heatmap> entry : heatmaps.entrySet()) {
+            Heatmap heatmap = entry.getValue();
+            int size = heatmap.layout.getSize();
+            try (PrintWriter out = csv(directory, "heatmap-" + entry.getKey() + ".csv")) {
+                for (int y = 0; y < size; y++) {
+                    StringBuilder row = new StringBuilder();
+                    for (int x = 0; x < size; x++) {
+                        row.append(x == 0 ? "" : ",").append(heatmap.tiles[y * size + x]);
+                    }
+                    out.println(row);
+                }
+            }
+            try (PrintWriter out = csv(directory, "premiums-" + entry.getKey() + ".csv")) {
+                out.println("premium,squares,tiles,tiles_per_square");
+                for (Map.Entry<String, long[]> premium : heatmap.byPremium().entrySet()) {
+                    long[] usage = premium.getValue();
+                    out.printf(Locale.ROOT, "%s,%d,%d,%.2f%n", premium.getKey(), usage[0], usage[1], (double) usage[1] / usage[0]);
+                }
+            }
+        }
+    }
+
+    private static PrintWriter csv(Path directory, String name) throws IOException {
+        return new PrintWriter(Files.newBufferedWriter(directory.resolve(name), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a summary of the statistics as JSON: the totals, the seats, the languages, the premium square usage
+     * and the most played words.
+     *
+     * @return the JSON summary
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT, "{\"games\": %d, \"moves\": %d, \"bingoRate\": %.4f, \"averageMoveScore\": %.2f,%n",
+                games, moves, getBingoRate(), moveScores.getMean()));
+        json.append("  \"seats\": [");
+        for (int seat = 0; seat < seatGames.length; seat++) {
+            json.append(seat == 0 ? "" : ", ").append(String.format(Locale.ROOT, "{\"seat\": %d, \"games\": %d, \"averageScore\": %.2f, \"winRate\": %.4f, \"bingos\": %d}",
+                    seat, seatGames[seat], getAverageScore(seat), getWinRate(seat), seatBingos[seat]));
+        }
+        json.append("],\n  \"languages\": {");
+        String separator = "";
+        for (Map.Entry<String, LanguageTotals> entry : new TreeMap<String, LanguageTotals>(languages).entrySet()) {
+            LanguageTotals totals = entry.getValue();
+            json.append(separator).append(String.format(Locale.ROOT, "\"%s\": {\"games\": %d, \"moves\": %d, \"pointsPerTile\": %.3f, \"pointsPerFaceValue\": %.3f}",
+                    escape(entry.getKey()), totals.games, totals.moves, totals.getPointsPerTile(), totals.getEfficiency()));
+            separator = ", ";
+        }
+        json.append("},\n  \"premiums\": {");
+        separator = "";
+        for (Map.Entry<String, Heatmap> entry : new TreeMap<String, Heatmap>(heatmaps).entrySet()) {
+            json.append(separator).append('"').append(escape(entry.getKey())).append("\": {");
+            String premiumSeparator = "";
+            for (Map.Entry<String, long[]> premium : entry.getValue().byPremium().entrySet()) {
+                long[] usage = premium.getValue();
+                json.append(premiumSeparator).append(String.format(Locale.ROOT, "\"%s\": %.2f", premium.getKey(), (double) usage[1] / usage[0]));
+                premiumSeparator = ", ";
+            }
+            json.append('}');
+            separator = ", ";
+        }
+        json.append("},\n  \"topWords\": [");
+        separator = "";
+        for (Map.Entry<String, Long> word : getTopWords(20)) {
+            json.append(separator).append(String.format("{\"word\": \"%s\", \"count\": %d}", escape(word.getKey()), word.getValue()));
+            separator = ", ";
+        }
+        return json.append("]}\n").toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Something that happened in a game, added to the statistics by {@link #add(Event)}.
+     */
+    public abstract static class Event {
+
+        abstract void addTo(GameStatistics statistics);
+    }
+
+    /**
+     * A placement played by the player at a seat.
+     */
+    public static class Move extends Event {
+
+        private final String language;
+        private final BoardLayout layout;
+        private final int seat;
+        private final Placement placement;
+
+        /**
+         * Constructs a {@code Move}.
+         *
+         * @param language the language of the game
+         * @param layout the layout of the board
+         * @param seat the seat of the player, 0 for the player playing first
+         * @param placement the placement played
+         */
+        public Move(Language language, BoardLayout layout, int seat, Placement placement) {
+            this.language = language.getName();
+            this.layout = layout;
+            this.seat = seat;
+            this.placement = placement;
+        }
+
+        @Override
+        void addTo(GameStatistics statistics) {
+            statistics.addMove(this);
+        }
+    }
+
+    /**
+     * The final scores of a game.
+     */
+    public static class Result extends Event {
+
+        private final String language;
+        private final int[] scores;
+
+        /**
+         * Constructs a {@code Result}.
+         *
+         * @param language the language of the game
+         * @param scores the final score of each seat, from the player playing first
+         */
+        public Result(Language language, int[] scores) {
+            this.language = language.getName();
+            this.scores = scores.clone();
+        }
+
+        @Override
+        void addTo(GameStatistics statistics) {
+            statistics.addResult(this);
+        }
+    }
+
+    /**
+     * Counts of values in buckets of a fixed width, the last bucket holding every value above.
+     */
+    private static final class Histogram {
+
+        private final int bucketWidth;
+        private final long[] counts;
+        private long sum = 0;
+
+        Histogram(int bucketWidth, int buckets) {
+            this.bucketWidth = bucketWidth;
+            this.counts = new long[buckets];
+        }
+
+        void add(int value) {
+            counts[Math.min(counts.length - 1, Math.max(0, value) / bucketWidth)]++;
+            sum += value;
+        }
+
+        void merge(Histogram other) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += other.counts[i];
+            }
+            sum += other.sum;
+        }
+
+        double getMean() {
+            long total = Arrays.stream(counts).sum();
+            return total == 0 ? 0 : (double) sum / total;
+        }
+
+        void writeCsv(PrintWriter out) {
+            out.println("from,to,count");
+            for (int i = 0; i < counts.length; i++) {
+                String to = i == counts.length - 1 ? "" : String.valueOf((i + 1) * bucketWidth - 1);
+                out.println(i * bucketWidth + "," + to + "," + counts[i]);
+            }
+        }
+    }
+
+    /**
+     * The number of tiles placed on each square of a layout.
+     */
+    private static final class Heatmap {
+
+        private final BoardLayout layout;
+        private final long[] tiles;
+
+        Heatmap(BoardLayout layout) {
+            this.layout = layout;
+            this.tiles = new long[layout.getSize() * layout.getSize()];
+        }
+
+        void merge(Heatmap other) {
+            for (int i = 0; i < tiles.length; i++) {
+                tiles[i] += other.tiles[i];
+            }
+        }
+
+        /**
+         * Returns, for each kind of square ("none", "2L", "3W"...), the number of such squares and of tiles placed on them.
+         */
+        TreeMap<String, long[]> byPremium() {
+            TreeMap<String, long[]> usage = new TreeMap<String, long[]>();
+            for (int square = 0; square < tiles.length; square++) {
+                int letter = layout.getLetterMultiplier(square);
+                int word = layout.getWordMultiplier(square);
+                String premium = word > 1 ? word + "W" : letter > 1 ? letter + "L" : "none";
+                long[] counts = usage.computeIfAbsent(premium, p -> new long[2]);
+                counts[0]++;
+                counts[1] += tiles[square];
+            }
+            return usage;
+        }
+    }
+
+    /**
+     * The points scored in a language, and the face value of the tiles that scored them.
+     */
+    private static final class LanguageTotals {
+
+        private long games;
+        private long moves;
+        private long points;
+        private long tiles;
+        private long faceValue;
+
+        void merge(LanguageTotals other) {
+            games += other.games;
+            moves += other.moves;
+            points += other.points;
+            tiles += other.tiles;
+            faceValue += other.faceValue;
+        }
+
+        double getPointsPerTile() {
+            return tiles == 0 ? 0 : (double) points / tiles;
+        }
+
+        /**
+         * Returns the points scored per point of face value of the tiles placed: how much premiums, words across
+         * and bingos multiply the value of the tiles.
+         */
+        double getEfficiency() {
+            return faceValue == 0 ? 0 : (double) points / faceValue;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code HintService} class suggests the best plays for a rack within a time budget.
+ * <p>
+ * The search is anytime: the lines of the board are searched by the {@link MoveGenerator} one after the other,
+ * the most promising first (those with the most premium squares next to tiles), while the best plays found so far
+ * are kept. When the budget runs out, the hint is completed with what was found and reports how many lines were
+ * searched. The player moving first cancels the hint's future, which stops the search within one starting square.
+ * The search works on a copy of the board and the rack taken when the hint starts, so the game can go on meanwhile.
+ * </p>
+ * <p>
+ * Complete hints are cached per position and rack, so asking again costs a lookup.
+ * </p>
+ *
+ * @see MoveGenerator
+ *
+ * @author agueguen
+ */
+public class HintService {
+
+    private static final Comparator<Placement> BY_SCORE = Comparator.comparingInt(Placement::getScore);
+
+    private final MoveGenerator moveGenerator;
+    private final int threadsPerHint;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService deadlines;
+    private final Map<String, Hint> cache;
+    // Hints in progress, completed with what they found when the service shuts down
+    private final Set<Search> searches = ConcurrentHashMap.newKeySet();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Constructs a {@code HintService} for the given valid words.
+     *
+     * @param validWords the valid words
+     * @param language the language giving the tiles their values
+     * @param threads the number of threads searching, shared by all hints
+     * @param cacheSize the number of complete hints kept
+     */
+    public HintService(ValidWords validWords, Language language, int threads, int cacheSize) {
+        this.moveGenerator = new MoveGenerator(validWords, language);
+        this.threadsPerHint = threads;
+        this.executor = Executors.newFixedThreadPool(threads, daemon("hint"));
+        this.deadlines = Executors.newSingleThreadScheduledExecutor(daemon("hint-deadline"));
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<String, Hint>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Hint> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Starts searching the best plays for a rack.
+     * The future completes with the best plays found when the whole board is searched or the budget runs out,
+     * whichever comes first. Cancelling the future stops the search. Once the service is shut down, the future
+     * is completed right away with an empty hint.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @param count the number of plays wanted
+     * @param budgetMillis the time the search may take, in milliseconds
+     * @return the future hint
+     */
+    public CompletableFuture<Hint> hint(Board board, ArrayList<Tile> rack, int count, long budgetMillis) {
+        long start = System.nanoTime();
+        String key = key(board, rack);
+        Hint cached = cache.get(key);
+        if (cached != null && cached.getPlacements().size() >= Math.min(count, cached.getMovesFound())) {
+            return CompletableFuture.completedFuture(cached.top(count, true, System.nanoTime() - start));
+        }
+        Search search = new Search(new Board(board), new ArrayList<Tile>(rack), count, start, key);
+        searches.add(search);
+        search.result.whenComplete((hint, error) -> searches.remove(search));
+        if (shutdown) {
+            search.finish();
+            return search.result;
+        }
+        try {
+            for (int i = 0; i < threadsPerHint; i++) {
+                executor.execute(search::work);
+            }
+            ScheduledFuture<?> deadline = deadlines.schedule(search::finish, budgetMillis, TimeUnit.MILLISECONDS);
+            search.result.whenComplete((hint, error) -> deadline.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // Shut down meanwhile
+            search.finish();
+        }
+        return search.result;
+    }
+
+    /**
+     * Searches the best plays for a rack and waits for them, see {@link #hint}.
+     *
+     * @param player the player asking for a hint
+     * @param board the board to place words on
+     * @param count the number of plays wanted
+     * @param budgetMillis the time the search may take, in milliseconds
+     * @return the hint
+     */
+    public Hint hint(Player player, Board board, int count, long budgetMillis) {
+        return hint(board, player.getTileRack(), count, budgetMillis).join();
+    }
+
+    /**
+     * Stops the threads of the service. Hints in progress are completed with what they found, and hints asked
+     * for afterwards are completed right away without searching.
+     */
+    public void shutdown() {
+        shutdown = true;
+        // Searches whose lines are still queued would never finish once the threads are stopped
+        for (Search search : searches) {
+            search.finish();
+        }
+        executor.shutdownNow();
+        deadlines.shutdownNow();
+    }
+
+    /**
+     * Returns the cache key of a position and rack on a layout; the letters of the rack are sorted as their order doesn't matter.
+     *
+     * @param board the board
+     * @param rack the rack
+     * @return the key
+     */
+    private static String key(Board board, ArrayList<Tile> rack) {
+        char[] letters = new char[rack.size()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = rack.get(i).getLetter();
+        }
+        Arrays.sort(letters);
+        // The squares of the layout rather than its name, which two different layouts can share
+        return board.getBoardLayout() + "|" + board.toPosition() + '|' + new String(letters);
+    }
+
+    /**
+     * Orders the lines of the board from the most to the least promising: lines where new tiles can go on
+     * premium squares next to the tiles of the board are searched first.
+     *
+     * @param board the board
+     * @return the lines, see {@link MoveGenerator#generateLine}
+     */
+    private static Integer[] orderLines(Board board) {
+        int size = board.getBoardSize();
+        int[] weights = new int[MoveGenerator.lines(board)];
+        for (int y = 0; y < size; y++) {
+            int anchors = board.getRowAnchors(y);
+            for (int x = 0; x < size; x++) {
+                if ((anchors & (1 << x)) != 0) {
+                    int square = y * size + x;
+                    int weight = 1 + board.getLetterMultiplier(square) + 2 * board.getWordMultiplier(square);
+                    weights[y] += weight;
+                    weights[size + x] += weight;
+                }
+            }
+        }
+        Integer[] lines = new Integer[weights.length];
+        for (int line = 0; line < lines.length; line++) {
+            lines[line] = line;
+        }
+        Arrays.sort(lines, (a, b) -> weights[b] - weights[a]);
+        return lines;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * A hint being searched: the lines left to search and the best plays found so far.
+     */
+    private final class Search {
+
+        private final Board board;
+        private final ArrayList<Tile> rack;
+        private final int count;
+        private final long start;
+        private final String key;
+        private final Integer[] lines;
+        private final AtomicInteger nextLine = new AtomicInteger();
+        private final AtomicInteger linesSearched = new AtomicInteger();
+        private final AtomicInteger workers = new AtomicInteger(threadsPerHint);
+        // Smallest score on top, so the worst of the best plays is the one replaced
+        private final PriorityQueue<Placement> best = new PriorityQueue<Placement>(BY_SCORE);
+        private int movesFound = 0;
+        private final CompletableFuture<Hint> result = new CompletableFuture<Hint>();
+
+        Search(Board board, ArrayList<Tile> rack, int count, long start, String key) {
+            this.board = board;
+            this.rack = rack;
+            this.count = count;
+            this.start = start;
+            this.key = key;
+            this.lines = orderLines(board);
+        }
+
+        /**
+         * Searches lines until they're all searched, or the hint is completed or cancelled.
+         */
+        void work() {
+            int line;
+            while (!result.isDone() && (line = nextLine.getAndIncrement()) < lines.length) {
+                if (moveGenerator.generateLine(board, rack, lines[line], this::offer, result::isDone)) {
+                    linesSearched.incrementAndGet();
+                }
+            }
+            if (workers.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private synchronized void offer(Placement placement) {
+            movesFound++;
+            if (best.size() < count) {
+                best.add(placement);
+            } else if (placement.getScore() > best.peek().getScore()) {
+                best.poll();
+                best.add(placement);
+            }
+        }
+
+        /**
+         * Completes the hint with the best plays found so far; only the first call has an effect.
+         */
+        synchronized void finish() {
+            if (result.isDone()) {
+                return;
+            }
+            ArrayList<Placement> placements = new ArrayList<Placement>(best);
+            placements.sort(BY_SCORE.reversed().thenComparing(Placement::toString));
+            Hint hint = new Hint(placements, linesSearched.get(), lines.length, movesFound, false, System.nanoTime() - start);
+            if (hint.isComplete()) {
+                cache.put(key, hint);
+            }
+            result.complete(hint);
+        }
+    }
+
+    /**
+     * The best plays found for a rack, and how much of the board was searched to find them.
+     */
+    public static class Hint {
+
+        private final List<Placement> placements;
+        private final int linesSearched;
+        private final int lines;
+        private final int movesFound;
+        private final boolean fromCache;
+        private final long elapsedNanos;
+
+        Hint(List<Placement> placements, int linesSearched, int lines, int movesFound, boolean fromCache, long elapsedNanos) {
+            this.placements = Collections.unmodifiableList(placements);
+            this.linesSearched = linesSearched;
+            this.lines = lines;
+            this.movesFound = movesFound;
+            this.fromCache = fromCache;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * Returns the best plays found, from the best to the worst.
+         *
+         * @return the plays
+         */
+        public List<Placement> getPlacements() {
+            return placements;
+        }
+
+        /**
+         * Returns how much of the board was searched, from 0 to 1.
+         *
+         * @return the share of lines searched
+         */
+        public double getCompleteness() {
+            return (double) linesSearched / lines;
+        }
+
+        /**
+         * Returns whether the whole board was searched, in which case the plays are the best possible.
+         *
+         * @return true if the search is complete
+         */
+        public boolean isComplete() {
+            return linesSearched == lines;
+        }
+
+        public int getLinesSearched() {
+            return linesSearched;
+        }
+
+        /**
+         * Returns the number of valid plays found, including those not kept.
+         *
+         * @return the number of valid plays found
+         */
+        public int getMovesFound() {
+            return movesFound;
+        }
+
+        public boolean isFromCache() {
+            return fromCache;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Returns a copy of this hint with at most the given number of plays.
+         */
+        Hint top(int count, boolean fromCache, long elapsedNanos) {
+            List<Placement> kept = new ArrayList<Placement>(placements.subList(0, Math.min(count, placements.size())));
+            return new Hint(kept, linesSearched, lines, movesFound, fromCache, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return placements.size() + " plays, " + linesSearched + "/" + lines + " lines searched"
+                    + (fromCache ? " (cached)" : "") + String.format(", %.1f ms", elapsedNanos / 1e6) + ": " + placements;
+        }
+    }
+}
@@ -29,7 +29,12 @@ public class Language {
     private String name;
     private HashMap<Character, Integer> values = new HashMap<Character, Integer>();
     private HashMap<Character, Integer> distribution = new HashMap<Character, Integer>();
-    private String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private String defaultLetters = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    // Values and distribution indexed by alphabet code, built once the language is loaded
+    private Alphabet alphabet;
+    private int[] valuesByCode;
+    private int[] distributionByCode;
+    private Tile[] tilesByCode;
 
     /**
      * Constructs a new {@code Language} object with the specified name.
@@ -38,6 +43,8 @@ public class Language {
      * @param name the name of the language
      */
     public Language(String name) {
+        ScrabbleEvents.DictionaryLoad event = new ScrabbleEvents.DictionaryLoad();
+        event.begin();
         this.name = name;
         File languagesFile = new File("languages.txt");
         LoadFile(languagesFile);
@@ -80,6 +87,29 @@ public class Language {
             System.out.println("An error occurred.");
             e.printStackTrace();
         }
+        encodeLetters();
+        event.end();
+        if (event.shouldCommit()) {
+            event.language = name;
+            event.kind = "letters";
+            event.entries = alphabet.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Builds the alphabet of the language and the arrays of values and distribution indexed by letter code.
+     */
+    private void encodeLetters() {
+        this.alphabet = new Alphabet(values.keySet());
+        this.valuesByCode = new int[alphabet.size()];
+        this.distributionByCode = new int[alphabet.size()];
+        values.forEach((letter, value) -> valuesByCode[alphabet.encode(letter)] = value);
+        distribution.forEach((letter, amount) -> distributionByCode[alphabet.encode(letter)] = amount);
+        this.tilesByCode = new Tile[alphabet.size()];
+        for (int code = 0; code < alphabet.size(); code++) {
+            tilesByCode[code] = new Tile(alphabet.decode(code), valuesByCode[code], code);
+        }
     }
 
     /**
@@ -116,13 +146,86 @@ public class Language {
         return distribution;
     }
 
+    /**
+     * Returns the alphabet of the language, mapping its letters to dense codes.
+     * 
+     * @return the alphabet
+     */
+    public Alphabet getAlphabet() {
+        return alphabet;
+    }
+
+    /**
+     * Returns the value of a letter.
+     * 
+     * @param letter the letter, ' ' for the blank
+     * @return the value of the letter
+     * @throws IllegalArgumentException if the letter isn't in the language
+     */
+    public int getValue(char letter) {
+        int code = alphabet.encode(letter);
+        if (code < 0) {
+            throw new IllegalArgumentException("Letter '" + letter + "' isn't in language " + name);
+        }
+        return valuesByCode[code];
+    }
+
+    /**
+     * Returns the shared tile of a letter. Every tile of that letter in any game of this language is this instance.
+     * 
+     * @param letter the letter, ' ' for the blank
+     * @return the tile of the letter
+     * @throws IllegalArgumentException if the letter isn't in the language
+     */
+    public Tile getTile(char letter) {
+        int code = alphabet.encode(letter);
+        if (code < 0) {
+            throw new IllegalArgumentException("Letter '" + letter + "' isn't in language " + name);
+        }
+        return tilesByCode[code];
+    }
+
+    /**
+     * Returns the shared tile of a letter code.
+     * 
+     * @param code the code of the letter
+     * @return the tile of the letter
+     */
+    public Tile getTile(int code) {
+        return tilesByCode[code];
+    }
+
+    /**
+     * Returns the letter values indexed by alphabet code.
+     * 
+     * @return the value of each letter code
+     */
+    public int[] getValuesByCode() {
+        return valuesByCode;
+    }
+
+    /**
+     * Returns the number of tiles of each letter indexed by alphabet code.
+     * 
+     * @return the amount of each letter code
+     */
+    public int[] getDistributionByCode() {
+        return distributionByCode;
+    }
+
     /**
      * Generates a new language configuration by prompting the user to input values and distribution for each letter.
+     * The letters of the language are asked first, defaulting to A to Z, so that accented letters can be included.
      * The input is collected through the standard input (console).
      */
     private void generateNewLanguage(){
         Scanner scanner = new Scanner(System.in);
-        for (char c : alphabet.toCharArray()){
+        System.out.println("Letters of the language (leave empty for " + defaultLetters + "): ");
+        String letters = scanner.nextLine().trim();
+        if (letters.isEmpty()) {
+            letters = defaultLetters;
+        }
+        for (char c : letters.toCharArray()){
             System.out.println("Value of the letter " + c + ": ");
             values.put(c, scanner.nextInt());
             System.out.println("Amount of the letter " + c + ": ");
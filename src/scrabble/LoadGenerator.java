@@ -0,0 +1,321 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Measures how many concurrent games and turns per second the game can sustain.
+ * <p>
+ * Each stage runs a number of threads, each playing headless {@link Game}s through {@link Game#playTurn} as fast
+ * as it can: most turns are legal placements picked at random among the first moves found by the
+ * {@link MoveGenerator}, the others are refused on purpose so the refusal path is exercised too. A game ends when
+ * no move is left and a new one starts. Stages double the number of threads, from 1 to the maximum.
+ * Only {@code playTurn} is timed: picking the move is the client's work.
+ * </p>
+ * <p>
+ * Each stage records the turns per second, the latency percentiles, the garbage collection pauses and the heap
+ * used after collections; the report is written as JSON so runs of different versions can be compared.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.LoadGenerator [language] [max threads] [seconds per stage] [report.json] [label]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class LoadGenerator {
+
+    private static final int PLAYERS = 2;
+    private static final int CANDIDATE_MOVES = 32;
+    private static final double REFUSED_TURNS = 0.1;
+
+    private final Language language;
+    private final ValidWords validWords;
+    private final MoveGenerator moveGenerator;
+
+    // Collection pauses, filled in by the notifications of the garbage collectors
+    private final AtomicLong gcPauses = new AtomicLong();
+    private final AtomicLong gcPauseMillis = new AtomicLong();
+    private final AtomicLong gcMaxPauseMillis = new AtomicLong();
+    private volatile long heapAfterGc = -1;
+
+    /**
+     * Constructs a {@code LoadGenerator} playing games in the given language.
+     *
+     * @param language the language of the games
+     */
+    public LoadGenerator(Language language) {
+        this.language = language;
+        this.validWords = SharedDictionary.forLanguage(language).current();
+        this.moveGenerator = new MoveGenerator(validWords, language);
+    }
+
+    /**
+     * @param args the language, the maximum number of threads, the seconds per stage, the report file and a label for the run
+     * @throws IOException if the report can't be written
+     * @throws InterruptedException if interrupted while waiting for a stage
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Path report = Path.of(args.length > 3 ? args[3] : "load-report.json");
+        String label = args.length > 4 ? args[4] : "";
+
+        LoadGenerator generator = new LoadGenerator(language);
+        generator.listenToGarbageCollections();
+        // Warms the JIT up before the first measured stage
+        generator.runStage(1, Math.min(seconds, 3));
+        ArrayList<Stage> stages = new ArrayList<Stage>();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Stage stage = generator.runStage(threads, seconds);
+            System.out.println(stage);
+            stages.add(stage);
+        }
+        Files.writeString(report, generator.toJson(label, stages), StandardCharsets.UTF_8);
+        System.out.println("Report written to " + report);
+    }
+
+    /**
+     * Runs a stage: the given number of threads play games for the given time.
+     *
+     * @param threads the number of concurrent games
+     * @param seconds the duration of the stage
+     * @return the measures of the stage
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public Stage runStage(int threads, double seconds) throws InterruptedException {
+        System.gc();
+        // Collection notifications come from another thread, leave them time to arrive before the stage starts
+        Thread.sleep(200);
+        long heapBefore = usedHeap();
+        heapAfterGc = -1;
+        long pausesBefore = gcPauses.get();
+        long pauseMillisBefore = gcPauseMillis.get();
+        gcMaxPauseMillis.set(0);
+
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        long[][] latencies = new long[threads][];
+        int[] games = new int[threads];
+        int[] refused = new int[threads];
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                Worker run = new Worker(new Random(thread));
+                run.play(end);
+                latencies[thread] = Arrays.copyOf(run.latencies, run.turns);
+                games[thread] = run.games;
+                refused[thread] = run.refused;
+                done.countDown();
+            }, "load-" + t);
+            worker.start();
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Stage(threads, elapsed, all, Arrays.stream(games).sum(), Arrays.stream(refused).sum(),
+                gcPauses.get() - pausesBefore, gcPauseMillis.get() - pauseMillisBefore, gcMaxPauseMillis.get(),
+                heapBefore, heapAfterGc < 0 ? usedHeap() : heapAfterGc);
+    }
+
+    /**
+     * Records the pauses of every garbage collection, and the heap used after them.
+     */
+    private void listenToGarbageCollections() {
+        NotificationListener listener = (Notification notification, Object handback) -> {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            long duration = info.getGcInfo().getDuration();
+            gcPauses.incrementAndGet();
+            gcPauseMillis.addAndGet(duration);
+            gcMaxPauseMillis.accumulateAndGet(duration, Math::max);
+            heapAfterGc = info.getGcInfo().getMemoryUsageAfterGc().values().stream().mapToLong(MemoryUsage::getUsed).sum();
+        };
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter emitter) {
+                emitter.addNotificationListener(listener, null, null);
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Writes the report of a run as JSON.
+     *
+     * @param label a label for the run, e.g. the version tested
+     * @param stages the stages of the run
+     * @return the JSON report
+     */
+    private String toJson(String label, List<Stage> stages) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"label\": \"").append(label.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\n");
+        json.append("  \"timestamp\": \"").append(Instant.now()).append("\",\n");
+        json.append("  \"language\": \"").append(language.getName()).append("\",\n");
+        json.append("  \"words\": ").append(validWords.size()).append(",\n");
+        json.append("  \"java\": \"").append(System.getProperty("java.version")).append("\",\n");
+        json.append("  \"processors\": ").append(Runtime.getRuntime().availableProcessors()).append(",\n");
+        json.append("  \"maxHeapBytes\": ").append(Runtime.getRuntime().maxMemory()).append(",\n");
+        json.append("  \"stages\": [\n");
+        for (int i = 0; i < stages.size(); i++) {
+            json.append("    ").append(stages.get(i).toJson()).append(i < stages.size() - 1 ? ",\n" : "\n");
+        }
+        json.append("  ]\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Plays games one after the other on one thread and times each turn.
+     */
+    private final class Worker {
+
+        private final Random random;
+        private long[] latencies = new long[1 << 12];
+        private int turns = 0;
+        private int games = 0;
+        private int refused = 0;
+
+        Worker(Random random) {
+            this.random = random;
+        }
+
+        void play(long end) {
+            Game game = newGame();
+            while (System.nanoTime() < end) {
+                Player player = game.getPlayers().get(game.getPlayerTurn());
+                List<Placement> candidates = moveGenerator.moves(game.getBoard(), player.getTileRack()).limit(CANDIDATE_MOVES).toList();
+                if (candidates.isEmpty() || game.isOver()) {
+                    game = newGame();
+                    continue;
+                }
+                Placement move = candidates.get(random.nextInt(candidates.size()));
+                // Shifted by one square, the placement is very likely refused
+                boolean refuse = random.nextDouble() < REFUSED_TURNS;
+                int x = refuse ? (move.getX() + 1) % game.getBoard().getBoardSize() : move.getX();
+
+                long start = System.nanoTime();
+                Placement played = game.playTurn(move.getWord(), x, move.getY(), move.isDirectionDown());
+                long latency = System.nanoTime() - start;
+
+                if (turns == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, turns * 2);
+                }
+                latencies[turns++] = latency;
+                if (!played.isValid()) {
+                    refused++;
+                }
+            }
+        }
+
+        private Game newGame() {
+            games++;
+            Bag bag = new Bag(language);
+            ArrayList<Player> players = new ArrayList<Player>(PLAYERS);
+            for (int i = 0; i < PLAYERS; i++) {
+                Player player = new Player(validWords);
+                player.drawTiles(bag);
+                players.add(player);
+            }
+            return new Game(language, bag, players, new Board(), 0);
+        }
+    }
+
+    /**
+     * The measures of a stage.
+     */
+    public static class Stage {
+
+        private final int threads;
+        private final long elapsedNanos;
+        private final long[] latencies;
+        private final int games;
+        private final int refused;
+        private final long gcPauses;
+        private final long gcPauseMillis;
+        private final long gcMaxPauseMillis;
+        private final long heapBefore;
+        private final long heapAfter;
+
+        Stage(int threads, long elapsedNanos, long[] latencies, int games, int refused,
+                long gcPauses, long gcPauseMillis, long gcMaxPauseMillis, long heapBefore, long heapAfter) {
+            this.threads = threads;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            this.games = games;
+            this.refused = refused;
+            this.gcPauses = gcPauses;
+            this.gcPauseMillis = gcPauseMillis;
+            this.gcMaxPauseMillis = gcMaxPauseMillis;
+            this.heapBefore = heapBefore;
+            this.heapAfter = heapAfter;
+        }
+
+        /**
+         * Returns the turns played per second over all threads.
+         *
+         * @return the throughput
+         */
+        public double getTurnsPerSecond() {
+            return latencies.length / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * Returns a latency percentile of {@link Game#playTurn}.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the latency in microseconds
+         */
+        public double getLatencyMicros(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(latencies.length - 1, Math.ceil(percentile / 100 * latencies.length) - 1);
+            return latencies[Math.max(0, index)] / 1e3;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"threads\": %d, \"seconds\": %.3f, \"turns\": %d, \"refusedTurns\": %d, \"games\": %d, "
+                    + "\"turnsPerSecond\": %.1f, \"latencyMicros\": {\"p50\": %.1f, \"p90\": %.1f, \"p99\": %.1f, \"p999\": %.1f, \"max\": %.1f}, "
+                    + "\"gc\": {\"pauses\": %d, \"totalMillis\": %d, \"maxMillis\": %d}, \"heapBytes\": {\"before\": %d, \"afterLastGc\": %d, \"growth\": %d}}",
+                    threads, elapsedNanos / 1e9, latencies.length, refused, games, getTurnsPerSecond(),
+                    getLatencyMicros(50), getLatencyMicros(90), getLatencyMicros(99), getLatencyMicros(99.9), getLatencyMicros(100),
+                    gcPauses, gcPauseMillis, gcMaxPauseMillis, heapBefore, heapAfter, heapAfter - heapBefore);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%3d threads: %8.0f turns/s, p50 %.1f us, p99 %.1f us, max %.1f us, %d GC pauses (%d ms, max %d ms), heap %+d KiB",
+                    threads, getTurnsPerSecond(), getLatencyMicros(50), getLatencyMicros(99), getLatencyMicros(100),
+                    gcPauses, gcPauseMillis, gcMaxPauseMillis, (heapAfter - heapBefore) / 1024);
+        }
+    }
+}
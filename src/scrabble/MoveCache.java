@@ -0,0 +1,450 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code MoveCache} class remembers the valid moves of the positions already analysed, so analysing them again,
+ * e.g. when replaying a game or reviewing another branch, costs a lookup instead of a search.
+ * <p>
+ * Moves are keyed by the hash of the position ({@link Board#getPositionHash()}, mixed with the layout) and the tiles
+ * of the rack whatever their order. They're kept as compact move lists (coordinates, direction, score and word of
+ * each move, from the best to the worst) on two levels: the most recently used lists in memory, and every list in a
+ * file, indexed by key when the cache is opened. Cached moves are rebuilt with the tiles of the rack asked about,
+ * without checking the words again; if one doesn't fit the board or the rack, the lists of two positions were mixed
+ * up and the moves are searched again.
+ * </p>
+ * <p>
+ * The file starts with the language and the fingerprint of the word list the moves were found with. When the
+ * word list changes, see {@link #setValidWords}, or the file was made with another one, both levels are emptied.
+ * Record layout: record length (int), position key (long), rack key (long), number of moves (short), then for each
+ * move x, y and direction (bytes), score (short), which tiles placed are blanks (byte bit mask) and the word as a
+ * byte length followed by UTF-8 bytes.
+ * </p>
+ *
+ * @see MoveGenerator#generate
+ * @see MoveCacheBenchmark
+ *
+ * @author agueguen
+ */
+public class MoveCache implements Closeable {
+
+    private static final int MAGIC = 0x4D4F5645; // "MOVE"
+    private static final int FORMAT = 1;
+
+    private final Language language;
+    private final FileChannel channel;
+    private long fileEnd;
+    private final Map<Key, byte[]> memory;
+    private final HashMap<Key, Long> offsets = new HashMap<Key, Long>();
+
+    private ValidWords validWords;
+    private MoveGenerator moveGenerator;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Opens a cache kept in the given file, creating the file if it doesn't exist, and indexes the move lists
+     * already in it, unless they were found with another word list.
+     *
+     * @param validWords the valid words
+     * @param language the language giving the tiles their values
+     * @param memoryEntries the number of move lists kept in memory
+     * @param file the file holding every move list, or null to keep them in memory only
+     * @throws IOException if the file can't be opened or read
+     */
+    public MoveCache(ValidWords validWords, Language language, int memoryEntries, Path file) throws IOException {
+        this.language = language;
+        this.memory = Collections.synchronizedMap(new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > memoryEntries;
+            }
+        });
+        this.validWords = validWords;
+        this.moveGenerator = new MoveGenerator(validWords, language);
+        this.channel = file == null ? null : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel != null) {
+            fileEnd = channel.size();
+            long offset = readHeader();
+            if (offset < 0) {
+                if (fileEnd > 0) {
+                    invalidations.incrementAndGet();
+                }
+                clearFile();
+            } else {
+                index(offset);
+            }
+        }
+    }
+
+    /**
+     * Returns the valid moves for a rack, from the best to the worst.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the valid placements
+     * @throws IOException if the move lists can't be read or written
+     */
+    public List<Placement> moves(Board board, ArrayList<Tile> rack) throws IOException {
+        Key key = new Key(board, rack);
+        ValidWords words;
+        MoveGenerator generator;
+        synchronized (this) {
+            words = validWords;
+            generator = moveGenerator;
+        }
+        byte[] moves = memory.get(key);
+        if (moves != null) {
+            memoryHits.incrementAndGet();
+        } else {
+            moves = read(key, words);
+            if (moves != null) {
+                diskHits.incrementAndGet();
+            }
+        }
+        if (moves != null) {
+            List<Placement> placements = decode(moves, board, rack);
+            if (placements != null) {
+                return placements;
+            }
+        }
+        misses.incrementAndGet();
+        ArrayList<Placement> placements = generator.generate(board, rack);
+        placements.sort(Comparator.comparingInt(Placement::getScore).reversed().thenComparing(Placement::toString));
+        moves = encode(placements);
+        write(key, moves, words);
+        return placements;
+    }
+
+    /**
+     * Returns the best move for a rack, see {@link #moves}.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the best placement, or null if there is no valid placement
+     * @throws IOException if the move lists can't be read or written
+     */
+    public Placement best(Board board, ArrayList<Tile> rack) throws IOException {
+        List<Placement> moves = moves(board, rack);
+        return moves.isEmpty() ? null : moves.get(0);
+    }
+
+    /**
+     * Changes the word list moves are searched with. If it doesn't have the same words, every cached move list is
+     * dropped, in memory and on disk.
+     *
+     * @param validWords the new valid words
+     * @throws IOException if the file can't be emptied
+     */
+    public synchronized void setValidWords(ValidWords validWords) throws IOException {
+        boolean changed = validWords.getFingerprint() != this.validWords.getFingerprint();
+        this.validWords = validWords;
+        this.moveGenerator = new MoveGenerator(validWords, language);
+        if (changed) {
+            invalidations.incrementAndGet();
+            memory.clear();
+            clearFile();
+        }
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of times the cached move lists were dropped because the word list changed.
+     *
+     * @return the number of invalidations
+     */
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    /**
+     * Returns the share of lookups answered by either level.
+     *
+     * @return the hit rate, from 0 to 1
+     */
+    public double getHitRate() {
+        long hits = memoryHits.get() + diskHits.get();
+        long lookups = hits + misses.get();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the number of move lists on disk.
+     *
+     * @return the number of positions and racks cached
+     */
+    public synchronized int size() {
+        return channel == null ? memory.size() : offsets.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d memory hits, %d disk hits, %d misses (%.1f%% hit rate), %d invalidations, %d move lists",
+                getMemoryHits(), getDiskHits(), getMisses(), 100 * getHitRate(), getInvalidations(), size());
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes moves as a compact move list.
+     */
+    private static byte[] encode(List<Placement> placements) {
+        byte[][] words = new byte[placements.size()][];
+        int length = 2;
+        for (int i = 0; i < words.length; i++) {
+            words[i] = placements.get(i).getWord().getBytes(StandardCharsets.UTF_8);
+            length += 3 + 2 + 1 + 1 + words[i].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putShort((short) placements.size());
+        for (int i = 0; i < words.length; i++) {
+            Placement placement = placements.get(i);
+            int blanks = 0;
+            for (int tile = 0; tile < placement.getTiles().size(); tile++) {
+                if (placement.getTiles().get(tile).isBlank()) {
+                    blanks |= 1 << tile;
+                }
+            }
+            buffer.put((byte) placement.getX()).put((byte) placement.getY()).put((byte) (placement.isDirectionDown() ? 1 : 0));
+            buffer.putShort((short) placement.getScore());
+            buffer.put((byte) blanks);
+            buffer.put((byte) words[i].length).put(words[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Rebuilds the placements of a compact move list for a board and a rack. The moves were valid when found, so
+     * they're only checked to fit: the letters on the board and the tiles on the rack must be the ones they need.
+     *
+     * @return the placements, or null if a move doesn't fit, as when two positions have the same key
+     */
+    private static List<Placement> decode(byte[] moves, Board board, ArrayList<Tile> rack) {
+        ByteBuffer buffer = ByteBuffer.wrap(moves);
+        int count = buffer.getShort() & 0xFFFF;
+        int size = board.getBoardSize();
+        boolean[] used = new boolean[rack.size()];
+        ArrayList<Placement> placements = new ArrayList<Placement>(count);
+        for (int i = 0; i < count; i++) {
+            int x = buffer.get();
+            int y = buffer.get();
+            boolean down = buffer.get() != 0;
+            int score = buffer.getShort();
+            int blanks = buffer.get();
+            byte[] bytes = new byte[buffer.get() & 0xFF];
+            buffer.get(bytes);
+            String word = new String(bytes, StandardCharsets.UTF_8);
+            if ((down ? y : x) + word.length() > size) {
+                return null;
+            }
+            Arrays.fill(used, false);
+            ArrayList<Tile> tiles = new ArrayList<Tile>(BingoRacks.RACK_SIZE);
+            int[] squares = new int[word.length()];
+            for (int letter = 0; letter < word.length(); letter++) {
+                int square = down ? (y + letter) * size + x : y * size + x + letter;
+                char placed = board.getLetter(square);
+                if (placed != '\0') {
+                    if (placed != word.charAt(letter)) {
+                        return null;
+                    }
+                    continue;
+                }
+                boolean blank = (blanks & (1 << tiles.size())) != 0;
+                int tile = 0;
+                while (tile < used.length && (used[tile] || (blank ? !rack.get(tile).isBlank()
+                        : rack.get(tile).isBlank() || rack.get(tile).getLetter() != word.charAt(letter)))) {
+                    tile++;
+                }
+                if (tile == used.length) {
+                    return null;
+                }
+                used[tile] = true;
+                squares[tiles.size()] = square;
+                tiles.add(rack.get(tile));
+            }
+            placements.add(new Placement(word, x, y, down, score, tiles, Arrays.copyOf(squares, tiles.size()), size));
+        }
+        return placements;
+    }
+
+    /**
+     * Reads the header of the file.
+     *
+     * @return the offset of the first record, or -1 if the file is empty or made for another language or word list
+     */
+    private long readHeader() throws IOException {
+        if (fileEnd < 4 + 4 + 8 + 2) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate((int) Math.min(fileEnd, 4 + 4 + 8 + 2 + 1024));
+        channel.read(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT || header.getLong() != validWords.getFingerprint()) {
+            return -1;
+        }
+        byte[] name = new byte[header.getShort() & 0xFFFF];
+        if (name.length > header.remaining()) {
+            return -1;
+        }
+        header.get(name);
+        return new String(name, StandardCharsets.UTF_8).equals(language.getName()) ? header.position() : -1;
+    }
+
+    /**
+     * Empties the file, keeping only a header for the current language and word list.
+     */
+    private synchronized void clearFile() throws IOException {
+        offsets.clear();
+        if (channel == null) {
+            return;
+        }
+        byte[] name = language.getName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer header = ByteBuffer.allocate(4 + 4 + 8 + 2 + name.length);
+        header.putInt(MAGIC).putInt(FORMAT).putLong(validWords.getFingerprint()).putShort((short) name.length).put(name);
+        header.flip();
+        channel.truncate(0);
+        fileEnd = 0;
+        while (header.hasRemaining()) {
+            fileEnd += channel.write(header, fileEnd);
+        }
+    }
+
+    /**
+     * Indexes the records of the file from the given offset. A record cut short, e.g. by a crash while it was
+     * written, and whatever follows it are dropped.
+     */
+    private void index(long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(4 + 8 + 8);
+        while (offset + head.capacity() <= fileEnd) {
+            head.clear();
+            channel.read(head, offset);
+            head.flip();
+            int length = head.getInt();
+            if (length < 16 || offset + 4 + length > fileEnd) {
+                break;
+            }
+            offsets.put(new Key(head.getLong(), head.getLong()), offset);
+            offset += 4 + length;
+        }
+        if (offset < fileEnd) {
+            channel.truncate(offset);
+            fileEnd = offset;
+        }
+    }
+
+    /**
+     * Reads the move list of a key from the file, and keeps it in memory unless the word list it was looked up
+     * with was replaced meanwhile.
+     *
+     * @return the move list, or null if it isn't in the file
+     */
+    private synchronized byte[] read(Key key, ValidWords words) throws IOException {
+        Long offset = offsets.get(key);
+        if (offset == null) {
+            return null;
+        }
+        ByteBuffer length = ByteBuffer.allocate(4);
+        channel.read(length, offset);
+        ByteBuffer record = ByteBuffer.allocate(length.flip().getInt() - 16);
+        while (record.hasRemaining()) {
+            channel.read(record, offset + 4 + 16 + record.position());
+        }
+        if (words == validWords) {
+            memory.put(key, record.array());
+        }
+        return record.array();
+    }
+
+    /**
+     * Caches the move list of a key, unless the word list it was found with was replaced meanwhile.
+     */
+    private synchronized void write(Key key, byte[] moves, ValidWords words) throws IOException {
+        if (words != validWords) {
+            return;
+        }
+        memory.put(key, moves);
+        if (channel == null || offsets.containsKey(key)) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(4 + 16 + moves.length);
+        record.putInt(16 + moves.length).putLong(key.position).putLong(key.rack).put(moves);
+        record.flip();
+        long offset = fileEnd;
+        while (record.hasRemaining()) {
+            fileEnd += channel.write(record, fileEnd);
+        }
+        offsets.put(key, offset);
+    }
+
+    /**
+     * The key of a position and a rack.
+     */
+    private static final class Key {
+
+        private final long position;
+        private final long rack;
+
+        Key(long position, long rack) {
+            this.position = position;
+            this.rack = rack;
+        }
+
+        Key(Board board, ArrayList<Tile> rack) {
+            // The same tiles on boards of different layouts are different positions
+            this(board.getPositionHash() ^ BloomFilter.hash(board.getBoardLayout().toString()), OpeningBook.key(rack));
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && key.position == position && key.rack == rack;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(position * 31 + rack);
+        }
+    }
+}
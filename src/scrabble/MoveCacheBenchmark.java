@@ -0,0 +1,132 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Measures what a {@link MoveCache} saves when the same games are analysed again, as when an archive of games is
+ * reviewed more than once: every position reached in the games is analysed (all the valid moves of the rack of the
+ * player to move) with the move generator alone, then through the cache, first empty, then warm in memory, then
+ * reopened so the move lists come from the file.
+ * <p>
+ * The games are played between players always choosing the best move. The cache file is started over at each run.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.MoveCacheBenchmark [language] [games] [move lists in memory] [cache file]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class MoveCacheBenchmark {
+
+    /**
+     * @param args the language, the number of games to play, the number of move lists kept in memory and the cache file
+     * @throws IOException if the cache file can't be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int numberOfGames = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int memoryEntries = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        Path file = Path.of(args.length > 3 ? args[3] : language.getName() + ".moves");
+        ValidWords validWords = SharedDictionary.forLanguage(language).current();
+        OpeningBook openingBook = new OpeningBook(validWords, language, BoardLayout.CLASSIC);
+
+        List<Position> positions = IntStream.range(0, numberOfGames).parallel()
+                .mapToObj(game -> playGame(language, validWords, openingBook))
+                .flatMap(List::stream)
+                .toList();
+        System.out.println(numberOfGames + " games, " + positions.size() + " positions");
+
+        MoveGenerator moveGenerator = new MoveGenerator(validWords, language);
+        Board board = new Board(BoardLayout.CLASSIC);
+        long start = System.nanoTime();
+        long moves = 0;
+        for (Position position : positions) {
+            board.loadPosition(position.position, language);
+            moves += moveGenerator.generate(board, position.rack).size();
+        }
+        report("move generator", start, positions.size(), moves, null);
+
+        Files.deleteIfExists(file);
+        try (MoveCache cache = new MoveCache(validWords, language, memoryEntries, file)) {
+            report("empty cache", start = System.nanoTime(), positions.size(), analyse(cache, positions, language), cache);
+            report("warm cache", start = System.nanoTime(), positions.size(), analyse(cache, positions, language), cache);
+        }
+        try (MoveCache cache = new MoveCache(validWords, language, memoryEntries, file)) {
+            report("reopened cache", start = System.nanoTime(), positions.size(), analyse(cache, positions, language), cache);
+            report("reopened cache, again", start = System.nanoTime(), positions.size(), analyse(cache, positions, language), cache);
+        }
+        System.out.printf("cache file: %d bytes, %.1f per position%n", Files.size(file), (double) Files.size(file) / positions.size());
+    }
+
+    /**
+     * Analyses every position through the cache.
+     *
+     * @return the number of moves found
+     */
+    private static long analyse(MoveCache cache, List<Position> positions, Language language) throws IOException {
+        Board board = new Board(BoardLayout.CLASSIC);
+        long moves = 0;
+        for (Position position : positions) {
+            board.loadPosition(position.position, language);
+            moves += cache.moves(board, position.rack).size();
+        }
+        return moves;
+    }
+
+    private static void report(String pass, long start, int positions, long moves, MoveCache cache) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %.0f ms, %.1f us per position, %d moves%s%n", pass, seconds * 1e3, seconds * 1e6 / positions, moves,
+                cache == null ? "" : "; " + cache);
+    }
+
+    /**
+     * Plays a game between two players always choosing the best move, until the game is over or the player to move
+     * has no move.
+     *
+     * @return the positions reached before each move, with the rack of the player to move
+     */
+    private static List<Position> playGame(Language language, ValidWords validWords, OpeningBook openingBook) {
+        Bag bag = new Bag(language);
+        ArrayList<Player> players = new ArrayList<Player>(2);
+        for (int i = 0; i < 2; i++) {
+            Player player = new Player(validWords);
+            player.drawTiles(bag);
+            players.add(player);
+        }
+        Game game = new Game(language, bag, players, new Board(BoardLayout.CLASSIC), 0);
+        ArrayList<Position> positions = new ArrayList<Position>();
+        while (!game.isOver()) {
+            ArrayList<Tile> rack = players.get(game.getPlayerTurn()).getTileRack();
+            Placement best = openingBook.best(game.getBoard(), rack);
+            if (best == null) {
+                break;
+            }
+            positions.add(new Position(game.getBoard().toPosition(), new ArrayList<Tile>(rack)));
+            game.playTurn(best.getWord(), best.getX(), best.getY(), best.isDirectionDown());
+        }
+        return positions;
+    }
+
+    /**
+     * A position reached in a game and the rack of the player to move.
+     */
+    private static final class Position {
+
+        private final String position;
+        private final ArrayList<Tile> rack;
+
+        Position(String position, ArrayList<Tile> rack) {
+            this.position = position;
+            this.rack = rack;
+        }
+    }
+}
@@ -0,0 +1,508 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Spliterator;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code MoveGenerator} class finds every valid placement for a rack on a board.
+ * <p>
+ * Each of the {@link #lines(Board)} lines of the board (the rows, then the columns) is searched on its own.
+ * For every empty square of the line, the letters allowed by the word across it are computed once, then words
+ * are extended square by square from each possible start along the {@link WordTrie} of the valid words,
+ * dropping a branch as soon as no valid word starts with its letters. Scores are added up along the way with the
+ * same rules as {@link PlacementEngine}, which would accept and score every placement found the same way:
+ * tiles are taken from the rack before blanks.
+ * </p>
+ *
+ * @see PlacementEngine
+ *
+ * @author agueguen
+ */
+public class MoveGenerator {
+
+    private final WordTrie trie;
+    private final Alphabet alphabet;
+    private final int[] valuesByCode;
+
+    /**
+     * Constructs a {@code MoveGenerator} for the given valid words.
+     *
+     * @param validWords the valid words
+     * @param language the language giving the tiles their values
+     * @throws IllegalArgumentException if the language has more than 63 letters
+     */
+    public MoveGenerator(ValidWords validWords, Language language) {
+        this.alphabet = language.getAlphabet();
+        if (alphabet.size() > Long.SIZE - 1) {
+            throw new IllegalArgumentException("Move generation supports up to 63 letters, " + language.getName() + " has " + (alphabet.size() - 1));
+        }
+        this.trie = validWords.getTrie();
+        this.valuesByCode = language.getValuesByCode();
+    }
+
+    /**
+     * Returns the number of lines of a board searched: the rows, then the columns.
+     *
+     * @param board the board
+     * @return the number of lines
+     */
+    public static int lines(Board board) {
+        return 2 * board.getBoardSize();
+    }
+
+    /**
+     * Returns every valid placement for a rack. Neither the board nor the rack are modified.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the valid placements, line by line
+     */
+    public ArrayList<Placement> generate(Board board, ArrayList<Tile> rack) {
+        ArrayList<Placement> placements = new ArrayList<Placement>();
+        for (int line = 0; line < lines(board); line++) {
+            generateLine(board, rack, line, placements::add);
+        }
+        return placements;
+    }
+
+    /**
+     * Returns the valid placements for a rack as a lazy stream: the board is searched as the stream is consumed,
+     * one starting square at a time, so short-circuiting operations such as {@code findFirst} or {@code limit}
+     * stop the search early. The stream splits into ranges of lines for parallel processing.
+     * The board and the rack must not change while the stream is consumed.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the valid placements, line by line
+     */
+    public Stream<Placement> moves(Board board, ArrayList<Tile> rack) {
+        int[] lines = IntStream.range(0, lines(board)).toArray();
+        return StreamSupport.stream(new MoveSpliterator(board, rack, lines, 1, 0, lines.length * board.getBoardSize()), false);
+    }
+
+    /**
+     * Returns the valid placements putting a tile on the given square as a lazy stream, see {@link #moves}.
+     * Only the row and the column of the square are searched.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return the valid placements putting a tile on the square
+     */
+    public Stream<Placement> movesThrough(Board board, ArrayList<Tile> rack, int x, int y) {
+        int[] lines = {y, board.getBoardSize() + x};
+        return StreamSupport.stream(new MoveSpliterator(board, rack, lines, 1, 0, lines.length * board.getBoardSize()), false)
+                .filter(placement -> placement.uses(x, y));
+    }
+
+    /**
+     * Returns the valid placements using all 7 tiles of the rack as a lazy stream, see {@link #moves}.
+     * Words that can't take 7 tiles are not searched.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the bingos
+     */
+    public Stream<Placement> bingos(Board board, ArrayList<Tile> rack) {
+        if (rack.size() < 7) {
+            return Stream.empty();
+        }
+        int[] lines = IntStream.range(0, lines(board)).toArray();
+        return StreamSupport.stream(new MoveSpliterator(board, rack, lines, 7, 0, lines.length * board.getBoardSize()), false);
+    }
+
+    /**
+     * Returns the placement worth the most points. Lines are searched in parallel; among placements worth
+     * the same points, the first found line by line is returned.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the best placement, or null if there is no valid placement
+     */
+    public Placement best(Board board, ArrayList<Tile> rack) {
+        return IntStream.range(0, lines(board)).parallel()
+                .mapToObj(line -> bestOfLine(board, rack, line))
+                .filter(placement -> placement != null)
+                .reduce((best, placement) -> placement.getScore() > best.getScore() ? placement : best)
+                .orElse(null);
+    }
+
+    /**
+     * Returns the placement of one line worth the most points.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @param line the line to search, see {@link #generateLine}
+     * @return the best placement of the line, or null if there is none
+     */
+    private Placement bestOfLine(Board board, ArrayList<Tile> rack, int line) {
+        Placement[] best = new Placement[1];
+        generateLine(board, rack, line, placement -> {
+            if (best[0] == null || placement.getScore() > best[0].getScore()) {
+                best[0] = placement;
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Finds the valid placements of one line of the board. Lines can be searched concurrently.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @param line the row (0 to size - 1) or the column plus the size of the board to search
+     * @param consumer receives each valid placement found
+     */
+    public void generateLine(Board board, ArrayList<Tile> rack, int line, Consumer<Placement> consumer) {
+        new LineSearch(board, rack, line, 1, consumer, () -> false).run();
+    }
+
+    /**
+     * Finds the valid placements of one line of the board, until asked to stop.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @param line the row (0 to size - 1) or the column plus the size of the board to search
+     * @param consumer receives each valid placement found
+     * @param stop checked before each starting square of the line, the search ends when it returns true
+     * @return true if the whole line was searched, false if it was stopped
+     */
+    public boolean generateLine(Board board, ArrayList<Tile> rack, int line, Consumer<Placement> consumer, BooleanSupplier stop) {
+        return new LineSearch(board, rack, line, 1, consumer, stop).run();
+    }
+
+    /**
+     * The state of the search of one line.
+     */
+    private final class LineSearch {
+
+        private final Board board;
+        private final int size;
+        private final Consumer<Placement> consumer;
+        private final BooleanSupplier stop;
+        private final boolean directionIsDown;
+        private final int first;
+        private final int along;
+        // The occupied squares and the anchors of the line, bit i for the square at position i
+        private final int occupancy;
+        private final int lineAnchors;
+
+        private final int[] counts;
+        private final Tile[] rackTiles;
+        private final int rackSize;
+
+        // Per square of the line: the letters allowed by the word across it, its score and whether there is one
+        private final long[] crossMasks;
+        private final int[] crossScores;
+        private final boolean[] hasCross;
+        private final boolean[] anchors;
+        // Per square of the line: the number of tiles needed to reach an anchor or a tile of the board from it,
+        // and the number of empty squares from it to the end of the line
+        private final int[] reach;
+        private final int[] emptySquares;
+        private final int minTiles;
+
+        // The word being extended
+        private final char[] letters;
+        private final Tile[] placedTiles;
+        private final int[] placedSquares;
+        private int start;
+
+        LineSearch(Board board, ArrayList<Tile> rack, int line, int minTiles, Consumer<Placement> consumer, BooleanSupplier stop) {
+            this.board = board;
+            this.size = board.getBoardSize();
+            this.minTiles = Math.max(1, minTiles);
+            this.consumer = consumer;
+            this.stop = stop;
+            this.directionIsDown = line >= size;
+            this.first = directionIsDown ? line - size : line * size;
+            this.along = directionIsDown ? size : 1;
+            this.occupancy = directionIsDown ? board.getColumnOccupancy(first) : board.getRowOccupancy(line);
+            this.lineAnchors = directionIsDown ? board.getColumnAnchors(first) : board.getRowAnchors(line);
+            this.counts = new int[alphabet.size()];
+            this.rackTiles = new Tile[alphabet.size()];
+            for (Tile tile : rack) {
+                counts[tile.getCode()]++;
+                rackTiles[tile.getCode()] = tile;
+            }
+            this.rackSize = rack.size();
+            this.crossMasks = new long[size];
+            this.crossScores = new int[size];
+            this.hasCross = new boolean[size];
+            this.anchors = new boolean[size];
+            this.reach = new int[size + 1];
+            this.emptySquares = new int[size + 1];
+            this.letters = new char[size];
+            this.placedTiles = new Tile[size];
+            this.placedSquares = new int[size];
+        }
+
+        /**
+         * Searches the whole line.
+         *
+         * @return true if the whole line was searched, false if it was stopped
+         */
+        boolean run() {
+            prepare();
+            for (int i = 0; i < size; i++) {
+                if (stop.getAsBoolean()) {
+                    return false;
+                }
+                searchFrom(i);
+            }
+            return true;
+        }
+
+        /**
+         * Computes what the search of the line needs to know about its squares, before any {@link #searchFrom(int)}.
+         */
+        void prepare() {
+            int across = directionIsDown ? 1 : size;
+            for (int i = 0; i < size; i++) {
+                int square = first + i * along;
+                if ((occupancy & (1 << i)) == 0) {
+                    computeCrossCheck(i, square, across);
+                }
+            }
+            reach[size] = Integer.MAX_VALUE;
+            for (int i = size - 1; i >= 0; i--) {
+                int square = first + i * along;
+                boolean empty = (occupancy & (1 << i)) == 0;
+                emptySquares[i] = emptySquares[i + 1] + (empty ? 1 : 0);
+                if (!empty) {
+                    reach[i] = 0;
+                } else if (anchors[i]) {
+                    reach[i] = 1;
+                } else {
+                    reach[i] = reach[i + 1] == Integer.MAX_VALUE ? Integer.MAX_VALUE : reach[i + 1] + 1;
+                }
+            }
+        }
+
+        /**
+         * Finds the valid placements of the words starting on one square of the line.
+         *
+         * @param i the position of the first letter along the line
+         */
+        void searchFrom(int i) {
+            // A word starts right after an empty square, and must reach an anchor with the tiles of the rack
+            if ((i == 0 || (occupancy & (1 << (i - 1))) == 0) && reach[i] <= rackSize && emptySquares[i] >= minTiles) {
+                start = i;
+                extend(i, trie.root(), 0, false, 0, 1, 0);
+            }
+        }
+
+        /**
+         * Computes which letters can go on an empty square given the word across it, and the score of that word's other tiles.
+         */
+        private void computeCrossCheck(int i, int square, int across) {
+            int line = directionIsDown ? square % size : square / size;
+            int before = square;
+            for (int k = line - 1; k >= 0 && board.isOccupied(before - across); k--) {
+                before -= across;
+            }
+            int after = square;
+            for (int k = line + 1; k < size && board.isOccupied(after + across); k++) {
+                after += across;
+            }
+            // The center connects any word covering it, like in PlacementEngine
+            anchors[i] = square == board.getCenter() || (lineAnchors & (1 << i)) != 0;
+            if (before == square && after == square) {
+                crossMasks[i] = -1L;
+                return;
+            }
+            hasCross[i] = true;
+            StringBuilder suffix = new StringBuilder();
+            int score = 0;
+            int node = trie.root();
+            for (int s = before; s < square && node >= 0; s += across) {
+                node = trie.child(node, board.getLetter(s));
+                score += board.getTile(s).getValue();
+            }
+            for (int s = square + across; s <= after; s += across) {
+                suffix.append(board.getLetter(s));
+                score += board.getTile(s).getValue();
+            }
+            crossScores[i] = score;
+            long mask = 0;
+            if (node >= 0) {
+                for (int edge = trie.firstEdge(node); edge < trie.lastEdge(node); edge++) {
+                    int end = trie.walk(trie.target(edge), suffix);
+                    int code = alphabet.encode(trie.label(edge));
+                    if (end >= 0 && trie.isTerminal(end) && code > 0) {
+                        mask |= 1L << code;
+                    }
+                }
+            }
+            crossMasks[i] = mask;
+        }
+
+        /**
+         * Extends the word with the square at position i of the line.
+         *
+         * @param i the position along the line
+         * @param node the trie node of the letters so far
+         * @param placed the number of tiles taken from the rack
+         * @param connected whether the word touches an anchor or a tile of the board
+         * @param wordScore the score of the letters of the word before multiplying it
+         * @param wordMultiplier the product of the word multipliers under new tiles
+         * @param crossScore the score of the words formed across new tiles
+         */
+        private void extend(int i, int node, int placed, boolean connected, int wordScore, int wordMultiplier, int crossScore) {
+            if (i == size) {
+                return;
+            }
+            int square = first + i * along;
+            char onBoard = board.getLetter(square);
+            if (onBoard != '\0') {
+                int next = trie.child(node, onBoard);
+                if (next >= 0) {
+                    letters[i - start] = onBoard;
+                    visit(i, next, placed, true, wordScore + board.getTile(square).getValue(), wordMultiplier, crossScore);
+                }
+                return;
+            }
+            if (placed == rackSize || placed + emptySquares[i] < minTiles) {
+                return;
+            }
+            int letterMultiplier = board.getLetterMultiplier(square);
+            int squareMultiplier = board.getWordMultiplier(square);
+            for (int edge = trie.firstEdge(node); edge < trie.lastEdge(node); edge++) {
+                char letter = trie.label(edge);
+                int code = alphabet.encode(letter);
+                if (code <= 0 || (crossMasks[i] & (1L << code)) == 0) {
+                    continue;
+                }
+                // Same choice as PlacementEngine: the letter's tile if there is one left, a blank otherwise
+                int tileCode = counts[code] > 0 ? code : Alphabet.BLANK;
+                if (counts[tileCode] == 0) {
+                    continue;
+                }
+                int value = valuesByCode[tileCode] * letterMultiplier;
+                int across = hasCross[i] ? (crossScores[i] + value) * squareMultiplier : 0;
+                counts[tileCode]--;
+                letters[i - start] = letter;
+                placedTiles[placed] = rackTiles[tileCode];
+                placedSquares[placed] = square;
+                visit(i, trie.target(edge), placed + 1, connected || anchors[i], wordScore + value, wordMultiplier * squareMultiplier, crossScore + across);
+                counts[tileCode]++;
+            }
+        }
+
+        /**
+         * Records the word ending on position i of the line if it's complete and valid, then keeps extending it.
+         */
+        private void visit(int i, int node, int placed, boolean connected, int wordScore, int wordMultiplier, int crossScore) {
+            boolean ends = i == size - 1 || (occupancy & (1 << (i + 1))) == 0;
+            if (ends && placed >= minTiles && connected && trie.isTerminal(node)) {
+                emit(i, placed, wordScore * wordMultiplier + crossScore + (placed == 7 ? 50 : 0));
+            }
+            extend(i + 1, node, placed, connected, wordScore, wordMultiplier, crossScore);
+        }
+
+        private void emit(int i, int placed, int score) {
+            ArrayList<Tile> tiles = new ArrayList<Tile>(placed);
+            int[] squares = new int[placed];
+            for (int k = 0; k < placed; k++) {
+                tiles.add(placedTiles[k]);
+                squares[k] = placedSquares[k];
+            }
+            int square = first + start * along;
+            String word = new String(letters, 0, i - start + 1);
+            consumer.accept(new Placement(word, square % size, square / size, directionIsDown, score, tiles, squares, size));
+        }
+    }
+
+    /**
+     * Enumerates the placements of a set of lines, searching one starting square at a time.
+     * Splits on ranges of starting squares, preferably whole lines, so each line is prepared by one spliterator.
+     */
+    private final class MoveSpliterator implements Spliterator<Placement> {
+
+        private final Board board;
+        private final int size;
+        private final ArrayList<Tile> rack;
+        private final int[] lines;
+        private final int minTiles;
+        // Next and end starting squares, numbered line by line over the lines given
+        private int next;
+        private final int end;
+        private LineSearch search;
+        private final ArrayDeque<Placement> found = new ArrayDeque<Placement>();
+
+        MoveSpliterator(Board board, ArrayList<Tile> rack, int[] lines, int minTiles, int next, int end) {
+            this.board = board;
+            this.size = board.getBoardSize();
+            this.rack = rack;
+            this.lines = lines;
+            this.minTiles = minTiles;
+            this.next = next;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Placement> action) {
+            while (found.isEmpty()) {
+                if (next == end) {
+                    return false;
+                }
+                int line = next / size;
+                int i = next % size;
+                if (search == null || i == 0) {
+                    search = new LineSearch(board, rack, lines[line], minTiles, found::add, () -> false);
+                    search.prepare();
+                }
+                search.searchFrom(i);
+                next++;
+                if (next % size == 0) {
+                    search = null;
+                }
+            }
+            action.accept(found.poll());
+            return true;
+        }
+
+        @Override
+        public Spliterator<Placement> trySplit() {
+            // Placements already found come before the split off prefix, so keep them in order
+            if (!found.isEmpty() || end - next < 2) {
+                return null;
+            }
+            int middle = (next + end) >>> 1;
+            if (end - next > size) {
+                middle -= middle % size;
+                if (middle <= next) {
+                    middle += size;
+                }
+            }
+            if (middle >= end) {
+                return null;
+            }
+            MoveSpliterator prefix = new MoveSpliterator(board, rack, lines, minTiles, next, middle);
+            search = null;
+            next = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - next;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL;
+        }
+    }
+}
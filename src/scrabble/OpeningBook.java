@@ -0,0 +1,323 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code OpeningBook} class remembers the best first move of every rack it's been asked about.
+ * <p>
+ * On an empty board the best placement only depends on the rack, whatever the order of its tiles, so it's searched
+ * once per rack and then looked up. Racks are keyed by their sorted letter codes. The openings are kept in a file
+ * as they're found, so they're searched once and for all: the file starts with the language, the layout and the
+ * fingerprint of the word list the openings were searched with, followed by one record per rack (its key, the
+ * direction, the coordinates and the word). A file searched with other words or for another board is started over.
+ * </p>
+ * <p>
+ * Usage: {@code java scrabble.OpeningBook [language] [racks] [layout file]} fills the book of a language with the
+ * openings of random racks drawn from a full bag.
+ * </p>
+ *
+ * @see MoveGenerator#best
+ *
+ * @author agueguen
+ */
+public class OpeningBook {
+
+    private static final int MAGIC = 0x4F50454E; // "OPEN"
+    private static final int FORMAT = 1;
+    // Direction of a record whose rack has no valid opening
+    private static final byte NONE = 0;
+    private static final byte ACROSS = 1;
+    private static final byte DOWN = 2;
+
+    private final Language language;
+    private final ValidWords validWords;
+    private final BoardLayout layout;
+    private final MoveGenerator moveGenerator;
+    private final PlacementEngine placementEngine;
+    private final Path file;
+    private final ConcurrentHashMap<Long, Opening> openings = new ConcurrentHashMap<Long, Opening>();
+
+    /**
+     * Constructs an {@code OpeningBook} kept in memory only.
+     *
+     * @param validWords the valid words
+     * @param language the language of the racks
+     * @param layout the layout of the board
+     */
+    public OpeningBook(ValidWords validWords, Language language, BoardLayout layout) {
+        this(validWords, language, layout, null);
+    }
+
+    /**
+     * Constructs an {@code OpeningBook} kept in a file, reading the openings the file already holds.
+     *
+     * @param validWords the valid words
+     * @param language the language of the racks
+     * @param layout the layout of the board
+     * @param file the file of the book, created if it doesn't exist, or null to keep the book in memory only
+     */
+    public OpeningBook(ValidWords validWords, Language language, BoardLayout layout, Path file) {
+        this.language = language;
+        this.validWords = validWords;
+        this.layout = layout;
+        this.moveGenerator = new MoveGenerator(validWords, language);
+        this.placementEngine = new PlacementEngine(validWords);
+        this.file = file;
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * Returns the default file of the book of a language and a layout, next to the word lists.
+     *
+     * @param language the language
+     * @param layout the layout
+     * @return the path of the file
+     */
+    public static Path defaultFile(Language language, BoardLayout layout) {
+        return Path.of(language.getName() + "-" + layout.getName() + ".openings");
+    }
+
+    /**
+     * Returns the best placement for a rack: looked up in the book on an empty board, searched otherwise.
+     *
+     * @param board the board to place words on
+     * @param rack the tiles available to the player
+     * @return the best placement, or null if there is no valid placement
+     */
+    public Placement best(Board board, ArrayList<Tile> rack) {
+        if (board.isEmpty() && board.getBoardLayout().equals(layout)) {
+            return lookup(board, rack);
+        }
+        return moveGenerator.best(board, rack);
+    }
+
+    /**
+     * Returns the best first move for a rack, searching it and adding it to the book if the rack is new.
+     *
+     * @param board an empty board with the layout of the book
+     * @param rack the tiles available to the player
+     * @return the best placement, or null if there is no valid placement
+     * @throws IllegalArgumentException if the board isn't empty or doesn't have the layout of the book
+     */
+    public Placement lookup(Board board, ArrayList<Tile> rack) {
+        if (!board.isEmpty()) {
+            throw new IllegalArgumentException("The opening book only knows first moves");
+        }
+        if (!board.getBoardLayout().equals(layout)) {
+            throw new IllegalArgumentException("The board " + board.getBoardLayout().getName() + " doesn't have the squares of the layout " + layout.getName() + " of the opening book");
+        }
+        long key = key(rack);
+        Opening opening = openings.get(key);
+        if (opening == null) {
+            // Searched without holding the map: racks seen for the first time at once are searched concurrently
+            Placement best = moveGenerator.best(board, rack);
+            Opening found = best == null ? new Opening(NONE, 0, 0, "")
+                    : new Opening(best.isDirectionDown() ? DOWN : ACROSS, best.getX(), best.getY(), best.getWord());
+            opening = openings.putIfAbsent(key, found);
+            if (opening == null) {
+                append(key, found);
+                opening = found;
+            }
+        }
+        if (opening.direction == NONE) {
+            return null;
+        }
+        return placementEngine.evaluate(board, rack, opening.word, opening.x, opening.y, opening.direction == DOWN);
+    }
+
+    /**
+     * Returns whether the first move of a rack is in the book.
+     *
+     * @param rack the rack
+     * @return true if looking it up won't search it
+     */
+    public boolean contains(ArrayList<Tile> rack) {
+        return openings.containsKey(key(rack));
+    }
+
+    /**
+     * Returns the number of racks in the book.
+     *
+     * @return the number of openings
+     */
+    public int size() {
+        return openings.size();
+    }
+
+    /**
+     * Returns the key of a rack: its letter codes sorted, 6 bits each, below its number of tiles.
+     *
+     * @param rack the rack
+     * @return the key
+     * @throws IllegalArgumentException if the rack has more than 7 tiles
+     */
+    static long key(ArrayList<Tile> rack) {
+        if (rack.size() > BingoRacks.RACK_SIZE) {
+            throw new IllegalArgumentException("Racks have at most " + BingoRacks.RACK_SIZE + " tiles: " + rack);
+        }
+        int[] codes = new int[rack.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = rack.get(i).getCode();
+        }
+        Arrays.sort(codes);
+        return BingoRacks.pack(codes, 0, codes.length) | ((long) codes.length << (6 * BingoRacks.RACK_SIZE));
+    }
+
+    /**
+     * Reads the openings of the file, or starts it over if it was written for other words or another board.
+     * A record cut short at the end of the file, as when the program stopped while appending it, is cut off.
+     */
+    private void load() {
+        byte[] header = header();
+        if (Files.exists(file)) {
+            try (BufferedInputStream buffered = new BufferedInputStream(Files.newInputStream(file));
+                    DataInputStream in = new DataInputStream(buffered)) {
+                if (Arrays.equals(in.readNBytes(header.length), header)) {
+                    // End of the last complete record
+                    long complete = header.length;
+                    try {
+                        while (true) {
+                            long key = in.readLong();
+                            byte direction = in.readByte();
+                            byte x = in.readByte();
+                            byte y = in.readByte();
+                            buffered.mark(2);
+                            int wordLength = in.readUnsignedShort();
+                            buffered.reset();
+                            openings.put(key, new Opening(direction, x, y, in.readUTF()));
+                            complete += 8 + 3 + 2 + wordLength;
+                        }
+                    } catch (EOFException e) {
+                        // End of the book
+                    }
+                    if (complete < Files.size(file)) {
+                        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                            channel.truncate(complete);
+                        }
+                    }
+                    return;
+                }
+                System.out.println("Opening book " + file + " was made for another word list or board, starting it over");
+            } catch (IOException e) {
+                System.out.println("Could not read opening book " + file + ": " + e.getMessage());
+            }
+        }
+        try {
+            Files.write(file, header);
+        } catch (IOException e) {
+            System.out.println("Could not write opening book " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the header of the file: the language, the layout and the fingerprint of the words of the book.
+     */
+    private byte[] header() {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(header)) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeUTF(language.getName());
+            out.writeUTF(layout.toString());
+            out.writeLong(validWords.getFingerprint());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return header.toByteArray();
+    }
+
+    /**
+     * Adds an opening at the end of the file.
+     */
+    private synchronized void append(long key, Opening opening) {
+        if (file == null) {
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND)))) {
+            out.writeLong(key);
+            out.writeByte(opening.direction);
+            out.writeByte(opening.x);
+            out.writeByte(opening.y);
+            out.writeUTF(opening.word);
+        } catch (IOException e) {
+            System.out.println("Could not write opening book " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The best first move of a rack, replayed on the rack looked up to get its tiles and score.
+     */
+    private static class Opening {
+
+        private final byte direction;
+        private final int x;
+        private final int y;
+        private final String word;
+
+        Opening(byte direction, int x, int y, String word) {
+            this.direction = direction;
+            this.x = x;
+            this.y = y;
+            this.word = word;
+        }
+    }
+
+    /**
+     * @param args the language, the number of random racks to look up and a layout file
+     * @throws IOException if the layout file can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int racks = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        BoardLayout layout = args.length > 2 ? BoardLayout.load(Path.of(args[2])) : BoardLayout.CLASSIC;
+        ValidWords validWords = SharedDictionary.forLanguage(language).current();
+        Path file = defaultFile(language, layout);
+        OpeningBook book = new OpeningBook(validWords, language, layout, file);
+        System.out.println(book.size() + " openings in " + file);
+
+        Board board = new Board(layout);
+        long searchNanos = 0;
+        long lookupNanos = 0;
+        int searched = 0;
+        for (int i = 0; i < racks; i++) {
+            Bag bag = new Bag(language);
+            ArrayList<Tile> rack = new ArrayList<Tile>();
+            while (rack.size() < BingoRacks.RACK_SIZE && bag.getBagSize() > 0) {
+                rack.add(bag.draw());
+            }
+            boolean known = book.contains(rack);
+            long start = System.nanoTime();
+            book.lookup(board, rack);
+            long elapsed = System.nanoTime() - start;
+            if (known) {
+                lookupNanos += elapsed;
+            } else {
+                searchNanos += elapsed;
+                searched++;
+            }
+        }
+        System.out.printf("%d racks: %d searched (%.2f ms each), %d looked up (%.1f us each), %d openings in the book%n",
+                racks, searched, searched == 0 ? 0 : searchNanos / 1e6 / searched,
+                racks - searched, racks == searched ? 0 : lookupNanos / 1e3 / (racks - searched), book.size());
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The {@code PatternSearch} class finds the valid words matching a pattern, such as {@code C?T*} or {@code ????ING}.
+ * <p>
+ * In a pattern, {@value #ANY_LETTER} stands for any one letter, {@value #ANY_LETTERS} for any number of letters,
+ * possibly none, and other characters for themselves. A rack can be given too, in which case the letters the
+ * wildcards stand for must come from the rack, a blank (' ' or {@value #ANY_LETTER}) standing for any letter:
+ * {@code ??C?T??} with a rack then finds the words that can be played through a C and a T two squares apart.
+ * </p>
+ * <p>
+ * The search walks the {@link WordTrie} of the valid words, following only the letters the pattern and the rack
+ * allow, and gives up on a branch as soon as its longest word is shorter than the letters the pattern still needs.
+ * Words are streamed as they're found, so taking the first few words of a stream only walks the part of the trie
+ * they're in. Without a star they come in alphabetical order.
+ * </p>
+ *
+ * @see WordTrie
+ *
+ * @author agueguen
+ */
+public class PatternSearch {
+
+    /** Stands for any one letter in a pattern, or for a blank on a rack */
+    public static final char ANY_LETTER = '?';
+    /** Stands for any number of letters in a pattern */
+    public static final char ANY_LETTERS = '*';
+
+    // Pattern tokens other than letters
+    private static final int ANY = -1;
+    private static final int STAR = -2;
+
+    private final WordTrie trie;
+
+    /**
+     * Constructs a {@code PatternSearch} for the given valid words.
+     *
+     * @param validWords the valid words
+     */
+    public PatternSearch(ValidWords validWords) {
+        this.trie = validWords.getTrie();
+    }
+
+    /**
+     * Streams the valid words matching a pattern.
+     *
+     * @param pattern the pattern
+     * @return the words
+     */
+    public Stream<String> search(String pattern) {
+        return search(pattern, (String) null);
+    }
+
+    /**
+     * Streams the valid words matching a pattern whose wildcards can be filled with the letters of a rack.
+     *
+     * @param pattern the pattern
+     * @param rack the letters available for the wildcards, or null for any letters
+     * @return the words
+     */
+    public Stream<String> search(String pattern, String rack) {
+        return StreamSupport.stream(new Matcher(pattern, rack), false);
+    }
+
+    /**
+     * Returns the first valid words matching a pattern whose wildcards can be filled with the letters of a rack.
+     *
+     * @param pattern the pattern
+     * @param rack the letters available for the wildcards, or null for any letters
+     * @param limit the largest number of words returned
+     * @return the words
+     */
+    public List<String> search(String pattern, String rack, int limit) {
+        return search(pattern, rack).limit(limit).toList();
+    }
+
+    /**
+     * Streams the valid words matching a pattern whose wildcards can be filled with the tiles of a rack.
+     *
+     * @param pattern the pattern
+     * @param rack the tiles available for the wildcards
+     * @return the words
+     */
+    public Stream<String> search(String pattern, ArrayList<Tile> rack) {
+        StringBuilder letters = new StringBuilder(rack.size());
+        for (Tile tile : rack) {
+            letters.append(tile.isBlank() ? ANY_LETTER : tile.getLetter());
+        }
+        return search(pattern, letters.toString());
+    }
+
+    /**
+     * A depth-first walk of the trie for one pattern, stopped whenever a word is found and resumed for the next one.
+     * <p>
+     * The walk keeps a stack of states: a node of the trie and the position in the pattern reached with the letters
+     * leading to it. From a state on a star, each letter either goes on with the star or matches the token after it,
+     * so a word can be reached more than once: words found are then only given the first time.
+     * </p>
+     */
+    private final class Matcher extends Spliterators.AbstractSpliterator<String> {
+
+        private final int[] tokens;
+        // Number of letters the pattern still needs from each position
+        private final int[] needed;
+        private final char[] rackLetters;
+        private final int[] rackCounts;
+        // Index in the rack of the blanks, -1 without a rack
+        private final int blankSlot;
+
+        private final int[] nodes;
+        private final int[] positions;
+        private final int[] cursors;
+        private final int[] slots;
+        private final boolean[] visited;
+        private final char[] word;
+        private final BitSet found;
+        private int depth = 0;
+
+        Matcher(String pattern, String rack) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            int[] parsed = new int[pattern.length()];
+            int length = 0;
+            boolean stars = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == ANY_LETTERS) {
+                    // Consecutive stars match the same as one
+                    if (length == 0 || parsed[length - 1] != STAR) {
+                        parsed[length++] = STAR;
+                    }
+                    stars = true;
+                } else {
+                    parsed[length++] = c == ANY_LETTER ? ANY : Character.toUpperCase(c);
+                }
+            }
+            this.tokens = Arrays.copyOf(parsed, length);
+            this.needed = new int[length + 1];
+            for (int i = length - 1; i >= 0; i--) {
+                needed[i] = needed[i + 1] + (tokens[i] == STAR ? 0 : 1);
+            }
+
+            if (rack == null) {
+                this.rackLetters = null;
+                this.rackCounts = null;
+                this.blankSlot = -1;
+            } else {
+                // One slot per distinct letter, the blanks in the last one
+                char[] letters = new char[rack.length() + 1];
+                int[] counts = new int[rack.length() + 1];
+                int distinct = 0;
+                int blanks = 0;
+                for (int i = 0; i < rack.length(); i++) {
+                    char c = Character.toUpperCase(rack.charAt(i));
+                    if (c == ANY_LETTER || c == ' ') {
+                        blanks++;
+                        continue;
+                    }
+                    int slot = 0;
+                    while (slot < distinct && letters[slot] != c) {
+                        slot++;
+                    }
+                    letters[slot] = c;
+                    counts[slot]++;
+                    distinct = Math.max(distinct, slot + 1);
+                }
+                counts[distinct] = blanks;
+                this.rackLetters = Arrays.copyOf(letters, distinct);
+                this.rackCounts = Arrays.copyOf(counts, distinct + 1);
+                this.blankSlot = distinct;
+            }
+
+            int maxLength = stars ? trie.height(trie.root()) : length;
+            this.nodes = new int[maxLength + 1];
+            this.positions = new int[maxLength + 1];
+            this.cursors = new int[maxLength + 1];
+            this.slots = new int[maxLength + 1];
+            this.visited = new boolean[maxLength + 1];
+            this.word = new char[maxLength];
+            this.found = stars ? new BitSet() : null;
+            if (trie.height(trie.root()) >= needed[0]) {
+                nodes[0] = trie.root();
+                slots[0] = -1;
+            } else {
+                depth = -1;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            while (depth >= 0) {
+                int node = nodes[depth];
+                int position = positions[depth];
+                if (!visited[depth]) {
+                    visited[depth] = true;
+                    if (trie.isTerminal(node) && needed[position] == 0 && (found == null || !found.get(node))) {
+                        if (found != null) {
+                            found.set(node);
+                        }
+                        action.accept(new String(word, 0, depth));
+                        return true;
+                    }
+                }
+                if (!advance(node, position)) {
+                    if (slots[depth] >= 0) {
+                        rackCounts[slots[depth]]++;
+                    }
+                    depth--;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Pushes the next state reachable from the state on top of the stack.
+         *
+         * @return false if every state reachable from it was pushed already
+         */
+        private boolean advance(int node, int position) {
+            if (position == tokens.length) {
+                return false;
+            }
+            int token = tokens[position];
+            if (token >= 0) {
+                // A letter of the pattern: a single edge to follow, on a square already holding the letter
+                if (cursors[depth]++ > 0) {
+                    return false;
+                }
+                int child = trie.child(node, (char) token);
+                if (child >= 0) {
+                    push((char) token, child, position + 1, -1);
+                }
+                return true;
+            }
+            int first = trie.firstEdge(node);
+            int last = trie.lastEdge(node);
+            // On a star, each edge is tried twice: going on with the star, then matching the token after it
+            int options = token == STAR ? 2 : 1;
+            int cursor;
+            while ((cursor = cursors[depth]++) < (last - first) * options) {
+                int edge = first + cursor / options;
+                char letter = trie.label(edge);
+                int next;
+                boolean fromRack;
+                if (token == ANY) {
+                    next = position + 1;
+                    fromRack = true;
+                } else if (cursor % options == 0) {
+                    next = position;
+                    fromRack = true;
+                } else if (position + 1 < tokens.length && (tokens[position + 1] == ANY || tokens[position + 1] == letter)) {
+                    next = position + 2;
+                    fromRack = tokens[position + 1] == ANY;
+                } else {
+                    continue;
+                }
+                int child = trie.target(edge);
+                if (trie.height(child) < needed[next]) {
+                    continue;
+                }
+                int slot = -1;
+                if (fromRack && rackCounts != null) {
+                    slot = take(letter);
+                    if (slot < 0) {
+                        continue;
+                    }
+                }
+                push(letter, child, next, slot);
+                return true;
+            }
+            return false;
+        }
+
+        private void push(char letter, int child, int position, int slot) {
+            word[depth] = letter;
+            depth++;
+            nodes[depth] = child;
+            positions[depth] = position;
+            cursors[depth] = 0;
+            slots[depth] = slot;
+            visited[depth] = false;
+        }
+
+        /**
+         * Takes a letter from the rack, or a blank if the letter isn't on it.
+         *
+         * @return the slot of the rack taken from, -1 if the rack has neither
+         */
+        private int take(char letter) {
+            for (int slot = 0; slot < rackLetters.length; slot++) {
+                if (rackLetters[slot] == letter) {
+                    if (rackCounts[slot] > 0) {
+                        rackCounts[slot]--;
+                        return slot;
+                    }
+                    break;
+                }
+            }
+            if (rackCounts[blankSlot] > 0) {
+                rackCounts[blankSlot]--;
+                return blankSlot;
+            }
+            return -1;
+        }
+    }
+}
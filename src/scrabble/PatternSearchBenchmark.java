@@ -0,0 +1,141 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the latency of {@link PatternSearch} queries, and of the same queries answered by going through every
+ * valid word with a regular expression, for several kinds of patterns built from random valid words.
+ * <p>
+ * Usage: {@code java scrabble.PatternSearchBenchmark [language] [queries]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class PatternSearchBenchmark {
+
+    private static final String[] KINDS = {"C?T*", "????ING", "??C?T?? + rack", "*ING", "first 20 of *E*"};
+
+    /**
+     * @param args the language and the number of queries per kind of pattern
+     */
+    public static void main(String[] args) {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        ValidWords validWords = new ValidWords(language);
+        long start = System.nanoTime();
+        PatternSearch patternSearch = new PatternSearch(validWords);
+        System.out.printf("%d words, trie of %d nodes built in %.0f ms%n",
+                validWords.size(), validWords.getTrie().size(), (System.nanoTime() - start) / 1e6);
+        ArrayList<String> words = new ArrayList<String>(validWords.getValidWords());
+        words.sort(null);
+        String letters = language.getAlphabet().toString().strip();
+        Random random = new Random(42);
+
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            String[] patterns = new String[queries];
+            String[] racks = new String[queries];
+            for (int i = 0; i < queries; i++) {
+                String word = words.get(random.nextInt(words.size()));
+                patterns[i] = pattern(kind, word, random);
+                racks[i] = kind == 2 ? rack(letters, random) : null;
+            }
+            int limit = kind == 4 ? 20 : Integer.MAX_VALUE;
+            // Warm up, then measure
+            run(patternSearch, patterns, racks, limit, new long[queries]);
+            long[] latencies = new long[queries];
+            long results = run(patternSearch, patterns, racks, limit, latencies);
+            Arrays.sort(latencies);
+
+            int scans = Math.min(queries, 50);
+            long scanStart = System.nanoTime();
+            for (int i = 0; i < scans; i++) {
+                Pattern regex = Pattern.compile(patterns[i].replace("?", ".").replace("*", ".*"));
+                long matches = 0;
+                for (String word : words) {
+                    if (regex.matcher(word).matches() && (racks[i] == null || fits(patterns[i], racks[i], word))) {
+                        if (++matches == limit) {
+                            break;
+                        }
+                    }
+                }
+            }
+            double scan = (System.nanoTime() - scanStart) / 1e3 / scans;
+
+            System.out.printf("%-16s %8.1f words/query  p50 %7.1f us  p99 %7.1f us  mean %7.1f us  (full scan %8.1f us)%n",
+                    KINDS[kind], (double) results / queries, latencies[queries / 2] / 1e3, latencies[queries * 99 / 100] / 1e3,
+                    Arrays.stream(latencies).average().orElse(0) / 1e3, scan);
+        }
+    }
+
+    private static long run(PatternSearch patternSearch, String[] patterns, String[] racks, int limit, long[] latencies) {
+        long results = 0;
+        for (int i = 0; i < patterns.length; i++) {
+            long start = System.nanoTime();
+            results += patternSearch.search(patterns[i], racks[i]).limit(limit).count();
+            latencies[i] = System.nanoTime() - start;
+        }
+        return results;
+    }
+
+    /**
+     * Builds a pattern of the given kind from a valid word, so that most patterns have matches.
+     */
+    private static String pattern(int kind, String word, Random random) {
+        int length = word.length();
+        switch (kind) {
+            case 0:
+                // First letter, any letter, third letter, then anything
+                return length < 3 ? word + "*" : word.charAt(0) + "?" + word.charAt(2) + "*";
+            case 1:
+                // Same length, same last three letters
+                return length <= 3 ? word : "?".repeat(length - 3) + word.substring(length - 3);
+            case 2:
+                // A row with two letters on the board, the other squares to fill from the rack
+                char[] row = "?".repeat(length).toCharArray();
+                int first = random.nextInt(length);
+                row[first] = word.charAt(first);
+                int second = random.nextInt(length);
+                row[second] = word.charAt(second);
+                return new String(row);
+            case 3:
+                return "*" + word.substring(Math.max(0, length - 3));
+            default:
+                return "*" + word.charAt(random.nextInt(length)) + "*";
+        }
+    }
+
+    private static String rack(String letters, Random random) {
+        char[] rack = new char[7];
+        for (int i = 0; i < rack.length; i++) {
+            rack[i] = random.nextInt(50) == 0 ? PatternSearch.ANY_LETTER : letters.charAt(random.nextInt(letters.length()));
+        }
+        return new String(rack);
+    }
+
+    /**
+     * Returns whether the letters of a word on the wildcards of a pattern without star are on a rack.
+     */
+    private static boolean fits(String pattern, String rack, String word) {
+        StringBuilder left = new StringBuilder(rack);
+        for (int i = 0; i < word.length(); i++) {
+            if (pattern.charAt(i) == PatternSearch.ANY_LETTER) {
+                int tile = left.indexOf(String.valueOf(word.charAt(i)));
+                if (tile < 0) {
+                    tile = left.indexOf(String.valueOf(PatternSearch.ANY_LETTER));
+                }
+                if (tile < 0) {
+                    return false;
+                }
+                left.deleteCharAt(tile);
+            }
+        }
+        return true;
+    }
+}
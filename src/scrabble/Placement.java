@@ -0,0 +1,170 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+
+/**
+ * The {@code Placement} class holds the outcome of checking a word placement with {@link PlacementEngine}:
+ * either the score of the word and the tiles to place, or the reason the placement isn't allowed.
+ * Evaluating a placement doesn't change the board nor the rack; see {@link Player#placeWord}.
+ *
+ * @author agueguen
+ */
+public class Placement {
+
+    private final String word;
+    private final int x;
+    private final int y;
+    private final boolean directionIsDown;
+    private final String reason;
+    private final int score;
+    private final ArrayList<Tile> tiles;
+    private final int[] squares;
+    private final int boardSize;
+
+    /**
+     * Constructs a valid placement.
+     *
+     * @param word the word placed
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @param score the points the placement is worth
+     * @param tiles the tiles taken from the rack
+     * @param squares the index of the square each tile goes on, see {@link Board#getTile(int)}
+     * @param boardSize the number of squares on each side of the board the squares are numbered on
+     */
+    Placement(String word, int x, int y, boolean directionIsDown, int score, ArrayList<Tile> tiles, int[] squares, int boardSize) {
+        this.word = word;
+        this.x = x;
+        this.y = y;
+        this.directionIsDown = directionIsDown;
+        this.reason = null;
+        this.score = score;
+        this.tiles = tiles;
+        this.squares = squares;
+        this.boardSize = boardSize;
+    }
+
+    /**
+     * Constructs a placement that isn't allowed.
+     *
+     * @param word the word to place
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @param reason why the placement isn't allowed
+     */
+    Placement(String word, int x, int y, boolean directionIsDown, String reason) {
+        this.word = word;
+        this.x = x;
+        this.y = y;
+        this.directionIsDown = directionIsDown;
+        this.reason = reason;
+        this.score = 0;
+        this.tiles = new ArrayList<Tile>();
+        this.squares = new int[0];
+        this.boardSize = 0;
+    }
+
+    public String getWord() {
+        return word;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public boolean isDirectionDown() {
+        return directionIsDown;
+    }
+
+    /**
+     * Returns whether the placement is allowed by Scrabble rules.
+     *
+     * @return true if the word can be placed
+     */
+    public boolean isValid() {
+        return reason == null;
+    }
+
+    /**
+     * Returns why the placement isn't allowed.
+     *
+     * @return the reason, or null if the placement is valid
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Returns the points the placement is worth, including adjacent words and the bonus for using 7 tiles.
+     *
+     * @return the score, 0 if the placement isn't valid
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the tiles taken from the rack, in the order they appear in the word.
+     *
+     * @return the tiles to place
+     */
+    public ArrayList<Tile> getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the index of the square each tile of {@link #getTiles()} goes on.
+     *
+     * @return the squares covered by new tiles
+     */
+    public int[] getSquares() {
+        return squares;
+    }
+
+    /**
+     * Returns whether the placement uses all 7 tiles of a rack, earning the 50 points bonus.
+     *
+     * @return true if 7 tiles are placed
+     */
+    public boolean isBingo() {
+        return tiles.size() == 7;
+    }
+
+    /**
+     * Returns whether the placement puts a new tile on the given square.
+     *
+     * @param x the x-coordinate of the square
+     * @param y the y-coordinate of the square
+     * @return true if a tile of the rack goes on the square
+     */
+    public boolean uses(int x, int y) {
+        int square = y * boardSize + x;
+        for (int placed : squares) {
+            if (placed == square) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a string representation of the placement.
+     *
+     * @return the string representation of the placement
+     */
+    @Override
+    public String toString() {
+        String placement = word + " at (" + x + ", " + y + ") " + (directionIsDown ? "down" : "across");
+        return isValid() ? placement + " for " + score : placement + ": " + reason;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Main.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * Measures how long {@link PlacementEngine#evaluate} takes for horizontal and vertical placements.
+ * A board is first filled with random valid words, then random words are evaluated at random squares
+ * with a rack holding the letters of the word, so that most evaluations go through the whole loop.
+ * The board is classic unless a layout file is given, to compare the cost of a placement on larger boards.
+ * <p>
+ * Usage: {@code java scrabble.PlacementBenchmark [language] [evaluations] [layout file]}
+ * </p>
+ *
+ * @author agueguen
+ */
+public class PlacementBenchmark {
+
+    /**
+     * @param args the language, the number of evaluations per direction and the board layout file
+     * @throws IOException if the layout file can't be read
+     */
+    public static void main(String[] args) throws IOException {
+        Language language = new Language(args.length > 0 ? args[0] : "english");
+        int evaluations = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        ValidWords validWords = new ValidWords(language);
+        PlacementEngine engine = new PlacementEngine(validWords);
+        ArrayList<String> words = new ArrayList<String>(validWords.getValidWords());
+        Random random = new Random(42);
+
+        Board board = args.length > 2 ? new Board(BoardLayout.load(Path.of(args[2]))) : new Board();
+        int size = board.getBoardSize();
+        int centerX = board.getCenter() % size;
+        int centerY = board.getCenter() / size;
+        int placed = 0;
+        for (int attempt = 0; attempt < 100_000 && placed < size; attempt++) {
+            String word = words.get(random.nextInt(words.size()));
+            boolean directionIsDown = random.nextBoolean();
+            int x = placed == 0 ? (directionIsDown ? centerX : Math.max(0, centerX + 1 - word.length())) : random.nextInt(size);
+            int y = placed == 0 ? (directionIsDown ? Math.max(0, centerY + 1 - word.length()) : centerY) : random.nextInt(size);
+            Player player = new Player(validWords, rackOf(word, language), 0);
+            Placement placement = engine.evaluate(board, player.getTileRack(), word, x, y, directionIsDown);
+            if (placement.isValid()) {
+                player.play(placement, board);
+                placed++;
+            }
+        }
+        System.out.println(placed + " words on the board");
+
+        // Same samples for both directions, the second round of each being the measured one
+        String[] samples = new String[4096];
+        ArrayList<ArrayList<Tile>> racks = new ArrayList<ArrayList<Tile>>();
+        int[] coordinates = new int[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = words.get(random.nextInt(words.size()));
+            racks.add(rackOf(samples[i], language));
+            coordinates[i] = random.nextInt(size * size);
+        }
+        for (int round = 0; round < 2; round++) {
+            for (boolean directionIsDown : new boolean[]{false, true}) {
+                int valid = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < evaluations; i++) {
+                    int s = i & (samples.length - 1);
+                    int a = coordinates[s] % size;
+                    int b = coordinates[s] / size;
+                    if (engine.evaluate(board, racks.get(s), samples[s], a, b, directionIsDown).isValid()) {
+                        valid++;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+                if (round == 1) {
+                    System.out.printf("%s: %.0f ns per evaluation (%d valid)%n", directionIsDown ? "down" : "across", (double) elapsed / evaluations, valid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a rack holding the first 7 letters of a word.
+     *
+     * @param word the word
+     * @param language the language giving the tiles their values
+     * @return the rack
+     */
+    private static ArrayList<Tile> rackOf(String word, Language language) {
+        ArrayList<Tile> rack = new ArrayList<Tile>(7);
+        for (int i = 0; i < word.length() && rack.size() < 7; i++) {
+            rack.add(language.getTile(word.charAt(i)));
+        }
+        return rack;
+    }
+}
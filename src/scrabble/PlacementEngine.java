@@ -0,0 +1,199 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+
+/**
+ * The {@code PlacementEngine} class checks and scores word placements by Scrabble rules.
+ * <p>
+ * Horizontal and vertical placements go through the same loop: the word is read along a line of the board,
+ * squares being numbered row by row so that moving along a row is a step of 1 and moving along a column
+ * (the transposed line) a step of the size of the board. Adjacent words are read with the other step, and premiums come from
+ * the multipliers precomputed by the {@code Board}.
+ * </p>
+ *
+ * @see Placement
+ * @see Board
+ *
+ * @author agueguen
+ */
+public class PlacementEngine {
+
+    private final ValidWords validWords;
+
+    /**
+     * Constructs a {@code PlacementEngine} checking words against the given valid words.
+     *
+     * @param validWords the valid words
+     */
+    public PlacementEngine(ValidWords validWords) {
+        this.validWords = validWords;
+    }
+
+    /**
+     * Checks whether a word can be placed on the board with the tiles of a rack, and scores it.
+     * Neither the board nor the rack are modified.
+     *
+     * @param board the board to place the word on
+     * @param rack the tiles available to the player
+     * @param word the word to place, including letters already on the board
+     * @param x the starting x-coordinate
+     * @param y the starting y-coordinate
+     * @param directionIsDown true if the word is placed vertically, false if placed horizontally
+     * @return the placement, valid or not
+     */
+    public Placement evaluate(Board board, ArrayList<Tile> rack, String word, int x, int y, boolean directionIsDown) {
+        int size = board.getBoardSize();
+        // Verifies given coordinates are within the bounds of the Scrabble board
+        if (x < 0 || x >= size || y < 0 || y >= size) {
+            return new Placement(word, x, y, directionIsDown, "Coordinates are invalid");
+        }
+
+        // Verifies given word is among valid Scrabble words for the language
+        if (!isValid(word)) {
+            return new Placement(word, x, y, directionIsDown, "Word is invalid");
+        }
+
+        // Steps between consecutive squares along the word and across it
+        int along = directionIsDown ? size : 1;
+        int across = directionIsDown ? 1 : size;
+        // Position of the first letter along the line, and of the line across the board (constant for the whole word)
+        int start = directionIsDown ? y : x;
+        int line = directionIsDown ? x : y;
+        int first = y * size + x;
+        int length = word.length();
+
+        // Verifies the entire word was given (there are no prefixes or suffixes to the main word)
+        if ((start > 0 && board.isOccupied(first - along)) || (start + length < size && board.isOccupied(first + length * along))) {
+            return new Placement(word, x, y, directionIsDown, "Please enter the entire word, including any letters already present on the board");
+        }
+        if (start + length > size) {
+            return new Placement(word, x, y, directionIsDown, "Word goes past the edge of the board");
+        }
+
+        // score of the letters of the word, the multiplier applied to it, and the score of adjacent words
+        int tempScore = 0;
+        int tempMultiplier = 1;
+        int adjacentScore = 0;
+
+        // Whether the word is connected to another word on the board (or is the first word and therefore passes through the center square),
+        // read from the occupancy and anchor bitboards of the line; reported after the letters are checked
+        boolean connected = board.connects(x, y, length, directionIsDown);
+
+        boolean[] used = new boolean[rack.size()];
+        ArrayList<Tile> tiles = new ArrayList<Tile>(length);
+        int[] squares = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            int square = first + i * along;
+            char currentLetter = word.charAt(i);
+            char placed = board.getLetter(square);
+
+            // If Square does contain the letter from the word, add its value to tempScore and continue
+            if (placed != '\0') {
+                if (placed != currentLetter) {
+                    return new Placement(word, x, y, directionIsDown, "Player doesn't have letter, or met incorrect letter");
+                }
+                tempScore += board.getTile(square).getValue();
+                continue;
+            }
+
+            // Square is empty, take the letter from the rack, or a blank if the player doesn't have it
+            int rackIndex = findTile(rack, used, currentLetter);
+            if (rackIndex < 0) {
+                return new Placement(word, x, y, directionIsDown, "Player doesn't have letter, or met incorrect letter");
+            }
+            Tile tile = rack.get(rackIndex);
+            int value = tile.getValue();
+            int letterMultiplier = board.getLetterMultiplier(square);
+            int wordMultiplier = board.getWordMultiplier(square);
+
+            // Check the word formed across this one, if any, and add its correctly multiplied score
+            int before = square;
+            for (int k = line - 1; k >= 0 && board.isOccupied(before - across); k--) {
+                before -= across;
+            }
+            int after = square;
+            for (int k = line + 1; k < size && board.isOccupied(after + across); k++) {
+                after += across;
+            }
+            if (before != square || after != square) {
+                StringBuilder adjacentWord = new StringBuilder();
+                int adjacentTiles = 0;
+                for (int s = before; s <= after; s += across) {
+                    if (s == square) {
+                        adjacentWord.append(currentLetter);
+                    } else {
+                        adjacentWord.append(board.getLetter(s));
+                        adjacentTiles += board.getTile(s).getValue();
+                    }
+                }
+                if (!isValid(adjacentWord.toString())) {
+                    return new Placement(word, x, y, directionIsDown, "Connected word " + adjacentWord + " is/becomes invalid");
+                }
+                adjacentScore += (adjacentTiles + value * letterMultiplier) * wordMultiplier;
+            }
+
+            tempScore += value * letterMultiplier;
+            tempMultiplier *= wordMultiplier;
+            used[rackIndex] = true;
+            squares[tiles.size()] = square;
+            tiles.add(tile);
+        }
+
+        // A word already on the board isn't a move
+        if (tiles.isEmpty()) {
+            return new Placement(word, x, y, directionIsDown, "No tile placed, the word is already on the board");
+        }
+        if (!connected) {
+            return new Placement(word, x, y, directionIsDown, "Not connected to other tiles");
+        }
+
+        int wordScore = tempScore * tempMultiplier + adjacentScore;
+        //if all 7 tiles of the player are placed, it is worth 50 extra points
+        if (tiles.size() == 7) {
+            wordScore += 50;
+        }
+        int[] placedSquares = new int[tiles.size()];
+        System.arraycopy(squares, 0, placedSquares, 0, tiles.size());
+        return new Placement(word, x, y, directionIsDown, wordScore, tiles, placedSquares, size);
+    }
+
+    /**
+     * Finds a tile with the specified letter in the rack, excluding already used tiles.
+     * If the player doesn't have the letter but owns a blank, the blank is returned instead.
+     *
+     * @param rack the tiles available to the player
+     * @param used which tiles of the rack are already used by the word
+     * @param letter the letter to look for
+     * @return the index of the tile in the rack, or -1 if not found
+     */
+    private static int findTile(ArrayList<Tile> rack, boolean[] used, char letter) {
+        int blank = -1;
+        for (int i = 0; i < used.length; i++) {
+            if (!used[i]) {
+                char rackLetter = rack.get(i).getLetter();
+                if (rackLetter == letter) {
+                    return i;
+                }
+                if (rack.get(i).isBlank() && blank < 0) {
+                    blank = i;
+                }
+            }
+        }
+        return blank;
+    }
+
+    /**
+     * Checks if the given word is valid according to the valid words set.
+     *
+     * @param word the word to check
+     * @return true if the word is valid, false otherwise
+     */
+    private boolean isValid(String word) {
+        return validWords.contains(word);
+    }
+}
@@ -0,0 +1,767 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.function.IntConsumer;
+
+/**
+ * The {@code PositionStore} class stores board positions in a local file and indexes them for analysis queries.
+ * <p>
+ * Each stored position is a board (in the format of {@link Board#toPosition()}), the rack of the player to move
+ * and whether a bingo was available. All the boards of a store have the size it was created with, kept in the
+ * header of the file. Positions are appended to the file and get consecutive ids. Alongside,
+ * the store keeps secondary indexes of ids: a bitset per square for occupancy and one for positions with a bingo
+ * available, and a posting list per word on the board and per letter on the rack. A {@link Query} combines them,
+ * so it never scans the stored positions.
+ * </p>
+ * <p>
+ * Most words are on few boards, so their posting lists keep the ids as the varint differences between them, a byte
+ * or two per position; a list switches to a bitset once that's smaller, as for the letters on most racks.
+ * The indexes are saved next to the file ({@link #checkpoint()}, and when the store is closed), so opening the store
+ * only indexes the positions added after the last checkpoint.
+ * </p>
+ * <p>
+ * File layout: a header (magic, format and size of the boards, ints), then the records. Record layout: record length
+ * (int), flags (byte), then the position and the rack, each as a short length followed by UTF-8 bytes.
+ * </p>
+ *
+ * @author agueguen
+ */
+public class PositionStore implements Closeable {
+
+    private static final int MAGIC = 0x50535452; // "PSTR"
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 4;
+    private static final byte BINGO_AVAILABLE = 1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    private static final int INDEX_MAGIC = 0x50494458; // "PIDX"
+    private static final int INDEX_FORMAT = 1;
+
+    private final FileChannel channel;
+    private final Path indexFile;
+    private final int boardSize;
+    private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private long fileEnd;
+
+    private long[] offsets = new long[1024];
+    private int size = 0;
+    private final BitSet[] occupied;
+    private final HashMap<String, Postings> words = new HashMap<String, Postings>();
+    private final HashMap<Character, Postings> rackLetters = new HashMap<Character, Postings>();
+    private final BitSet bingoAvailable = new BitSet();
+
+    /**
+     * Opens the store kept in the given file, with the size of boards it was created with, or creates a store of
+     * positions of classic boards if the file doesn't exist.
+     *
+     * @param file the file holding the positions
+     * @throws IOException if the file can't be opened or read, or isn't a position store
+     * @see #PositionStore(Path, BoardLayout)
+     */
+    public PositionStore(Path file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Opens the store of positions of boards of the given layout kept in the given file, creating the file if it
+     * doesn't exist. The indexes are read from the last checkpoint, in {@code <file>.index}, and the positions added
+     * after it are indexed again. An incomplete record at the end of the file, left by a flush that didn't finish,
+     * is removed.
+     *
+     * @param file the file holding the positions
+     * @param layout the layout of the boards of the positions
+     * @throws IOException if the file can't be opened or read, or isn't a position store
+     * @throws IllegalArgumentException if the store holds positions of boards of another size
+     */
+    public PositionStore(Path file, BoardLayout layout) throws IOException {
+        this(file, layout.getSize());
+    }
+
+    /**
+     * @param size the size of the boards, 0 for the size of the existing store or the classic size for a new one
+     */
+    private PositionStore(Path file, int size) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.boardSize = readHeader(file, size);
+        } catch (IOException | IllegalArgumentException e) {
+            channel.close();
+            throw e;
+        }
+        this.occupied = new BitSet[boardSize * boardSize];
+        for (int i = 0; i < occupied.length; i++) {
+            occupied[i] = new BitSet();
+        }
+        this.fileEnd = channel.size();
+        this.indexFile = file.resolveSibling(file.getFileName() + ".index");
+        long offset = readCheckpoint();
+        while (offset + 4 <= fileEnd) {
+            int length = recordLength(offset);
+            if (length < 1 + 2 + 2 || offset + 4 + length > fileEnd) {
+                break;
+            }
+            StoredPosition position = read(offset);
+            index(offset, position.getPosition(), position.getRack(), position.isBingoAvailable());
+            offset += 4 + length;
+        }
+        // A record cut short by a crash during a flush is dropped, later records are appended after the last complete one
+        if (offset < fileEnd) {
+            channel.truncate(offset);
+            fileEnd = offset;
+        }
+    }
+
+    /**
+     * Reads the header of the file, or writes it to a new file.
+     *
+     * @param file the file holding the positions
+     * @param size the size of the boards asked for, 0 for any
+     * @return the size of the boards of the store
+     */
+    private int readHeader(Path file, int size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() == 0) {
+            int created = size == 0 ? BoardLayout.CLASSIC.getSize() : size;
+            header.putInt(MAGIC).putInt(FORMAT).putInt(created).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            return created;
+        }
+        if (channel.size() < HEADER_SIZE) {
+            throw new IOException(file + " isn't a position store");
+        }
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT) {
+            throw new IOException(file + " isn't a position store of format " + FORMAT);
+        }
+        int stored = header.getInt();
+        if (stored < 2 || stored > BoardLayout.MAX_SIZE) {
+            throw new IOException(file + " has boards of an invalid size " + stored);
+        }
+        if (size != 0 && size != stored) {
+            throw new IllegalArgumentException(file + " holds positions of " + stored + "x" + stored + " boards, not " + size + "x" + size);
+        }
+        return stored;
+    }
+
+    /**
+     * Appends a position to the store. The record is buffered, see {@link #flush()}.
+     *
+     * @param position the position, in the format of {@link Board#toPosition()}
+     * @param rack the letters on the rack of the player to move, ' ' for blanks
+     * @param bingoAvailable whether the player to move could play all the tiles of the rack
+     * @return the id of the stored position
+     * @throws IOException if the buffered records can't be written
+     * @throws IllegalArgumentException if the position isn't a position of a board of the size of the store
+     */
+    public synchronized int add(String position, String rack, boolean bingoAvailable) throws IOException {
+        if (position.length() != boardSize * (boardSize + 1) - 1) {
+            throw new IllegalArgumentException("Only positions of " + boardSize + "x" + boardSize + " boards are stored: " + position);
+        }
+        byte[] positionBytes = position.getBytes(StandardCharsets.UTF_8);
+        byte[] rackBytes = rack.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 2 + positionBytes.length + 2 + rackBytes.length;
+        if (writeBuffer.remaining() < 4 + length) {
+            flush();
+        }
+        long offset = fileEnd + writeBuffer.position();
+        writeBuffer.putInt(length);
+        writeBuffer.put(bingoAvailable ? BINGO_AVAILABLE : 0);
+        writeBuffer.putShort((short) positionBytes.length).put(positionBytes);
+        writeBuffer.putShort((short) rackBytes.length).put(rackBytes);
+        return index(offset, position, rack, bingoAvailable);
+    }
+
+    /**
+     * Adds a board and the rack of the player to move to the store.
+     *
+     * @param board the board
+     * @param rack the rack of the player to move
+     * @param bingoAvailable whether the player to move could play all the tiles of the rack
+     * @return the id of the stored position
+     * @throws IOException if the buffered records can't be written
+     * @throws IllegalArgumentException if the board doesn't have the size of the boards of the store
+     */
+    public int add(Board board, ArrayList<Tile> rack, boolean bingoAvailable) throws IOException {
+        StringBuilder letters = new StringBuilder(rack.size());
+        for (Tile tile : rack) {
+            letters.append(tile.getLetter());
+        }
+        return add(board.toPosition(), letters.toString(), bingoAvailable);
+    }
+
+    /**
+     * Writes the buffered positions to the file.
+     *
+     * @throws IOException if the positions can't be written
+     */
+    public synchronized void flush() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            fileEnd += channel.write(writeBuffer, fileEnd);
+        }
+        writeBuffer.clear();
+    }
+
+    /**
+     * Returns the stored position with the given id.
+     *
+     * @param id the id of the position
+     * @return the stored position
+     * @throws IOException if the position can't be read
+     */
+    public synchronized StoredPosition get(int id) throws IOException {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No position with id " + id);
+        }
+        if (offsets[id] >= fileEnd) {
+            flush();
+        }
+        return read(offsets[id]);
+    }
+
+    /**
+     * Returns the size of the boards of the positions in the store.
+     *
+     * @return the number of squares on each side of the boards
+     */
+    public int getBoardSize() {
+        return boardSize;
+    }
+
+    /**
+     * Returns the number of positions in the store.
+     *
+     * @return the number of positions
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Starts a query over the stored positions. Conditions added to it must all hold.
+     *
+     * @return a query matching every position
+     */
+    public Query query() {
+        return new Query();
+    }
+
+    /**
+     * Flushes the buffered positions and closes the file.
+     *
+     * @throws IOException if the positions can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            checkpoint();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Flushes the buffered positions and saves the indexes, so that opening the store next time doesn't index
+     * the positions stored so far again. The index file is replaced at once.
+     *
+     * @throws IOException if the positions or the indexes can't be written
+     */
+    public synchronized void checkpoint() throws IOException {
+        flush();
+        Path temporary = Files.createTempFile(indexFile.toAbsolutePath().getParent(), indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(INDEX_FORMAT);
+                out.writeLong(fileEnd);
+                out.writeInt(size);
+                for (int id = 0; id < size; id++) {
+                    out.writeLong(offsets[id]);
+                }
+                for (BitSet square : occupied) {
+                    writeBits(out, square);
+                }
+                writeBits(out, bingoAvailable);
+                out.writeInt(words.size());
+                for (var word : words.entrySet()) {
+                    out.writeUTF(word.getKey());
+                    word.getValue().write(out);
+                }
+                out.writeInt(rackLetters.size());
+                for (var letter : rackLetters.entrySet()) {
+                    out.writeChar(letter.getKey());
+                    letter.getValue().write(out);
+                }
+            }
+            try (FileChannel written = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                written.force(true);
+            }
+            Files.move(temporary, indexFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads the indexes of the last checkpoint, if it matches the file.
+     *
+     * @return the offset of the first position the checkpoint doesn't index, the end of the header without a checkpoint
+     */
+    private long readCheckpoint() {
+        if (!Files.exists(indexFile)) {
+            return HEADER_SIZE;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != INDEX_FORMAT) {
+                throw new IOException("not an index of positions");
+            }
+            long end = in.readLong();
+            int count = in.readInt();
+            long[] ids = new long[Math.max(1024, Integer.highestOneBit(Math.max(count, 1)) * 2)];
+            for (int id = 0; id < count; id++) {
+                ids[id] = in.readLong();
+            }
+            // The checkpoint must end with the last record it indexes, where the file still has a record boundary
+            if (end > fileEnd || (count > 0 ? ids[count - 1] + 4 + recordLength(ids[count - 1]) : HEADER_SIZE) != end) {
+                throw new IOException("made for another file");
+            }
+            BitSet[] squares = new BitSet[occupied.length];
+            for (int i = 0; i < squares.length; i++) {
+                squares[i] = readBits(in);
+            }
+            BitSet bingo = readBits(in);
+            HashMap<String, Postings> wordPostings = new HashMap<String, Postings>();
+            for (int i = in.readInt(); i > 0; i--) {
+                wordPostings.put(in.readUTF(), Postings.read(in));
+            }
+            HashMap<Character, Postings> letterPostings = new HashMap<Character, Postings>();
+            for (int i = in.readInt(); i > 0; i--) {
+                letterPostings.put(in.readChar(), Postings.read(in));
+            }
+            offsets = ids;
+            size = count;
+            System.arraycopy(squares, 0, occupied, 0, squares.length);
+            bingoAvailable.or(bingo);
+            words.putAll(wordPostings);
+            rackLetters.putAll(letterPostings);
+            return end;
+        } catch (IOException e) {
+            System.out.println("Could not read the index " + indexFile + ", indexing every position again: " + e.getMessage());
+            return HEADER_SIZE;
+        }
+    }
+
+    private static void writeBits(DataOutputStream out, BitSet bits) throws IOException {
+        long[] longs = bits.toLongArray();
+        out.writeInt(longs.length);
+        for (long word : longs) {
+            out.writeLong(word);
+        }
+    }
+
+    private static BitSet readBits(DataInputStream in) throws IOException {
+        long[] longs = new long[in.readInt()];
+        for (int i = 0; i < longs.length; i++) {
+            longs[i] = in.readLong();
+        }
+        return BitSet.valueOf(longs);
+    }
+
+    /**
+     * Adds a position to the indexes.
+     *
+     * @param offset the offset of the record in the file
+     * @param position the position
+     * @param rack the rack of the player to move
+     * @param bingo whether a bingo was available
+     * @return the id given to the position
+     */
+    private int index(long offset, String position, String rack, boolean bingo) {
+        int id = size++;
+        if (id == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[id] = offset;
+
+        char[] squares = position.replace("/", "").toUpperCase().toCharArray();
+        for (int i = 0; i < squares.length; i++) {
+            if (squares[i] != '.') {
+                occupied[i].set(id);
+            }
+        }
+        for (String word : wordsOf(squares, boardSize)) {
+            words.computeIfAbsent(word, w -> new Postings()).add(id);
+        }
+        for (int i = 0; i < rack.length(); i++) {
+            rackLetters.computeIfAbsent(rack.charAt(i), c -> new Postings()).add(id);
+        }
+        if (bingo) {
+            bingoAvailable.set(id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns every distinct horizontal and vertical word of at least two letters in a square grid.
+     *
+     * @param squares the letters of the grid row by row, '.' for empty squares
+     * @param size the number of squares on each side of the grid
+     * @return the words in the grid
+     */
+    private static HashSet<String> wordsOf(char[] squares, int size) {
+        HashSet<String> found = new HashSet<String>();
+        StringBuilder word = new StringBuilder(size);
+        for (int direction = 0; direction < 2; direction++) {
+            for (int line = 0; line < size; line++) {
+                for (int i = 0; i <= size; i++) {
+                    char c = '.';
+                    if (i < size) {
+                        c = direction == 0 ? squares[line * size + i] : squares[i * size + line];
+                    }
+                    if (c != '.') {
+                        word.append(c);
+                    } else {
+                        if (word.length() >= 2) {
+                            found.add(word.toString());
+                        }
+                        word.setLength(0);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Returns the length of the record at the given offset, excluding its length field.
+     *
+     * @param offset the offset of the record
+     * @return the length of the record
+     * @throws IOException if the record can't be read
+     */
+    private int recordLength(long offset) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(4);
+        readFully(length, offset);
+        return length.flip().getInt();
+    }
+
+    /**
+     * Reads the record at the given offset.
+     *
+     * @param offset the offset of the record
+     * @return the stored position
+     * @throws IOException if the record can't be read
+     */
+    private StoredPosition read(long offset) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordLength(offset));
+        readFully(record, offset + 4);
+        record.flip();
+        boolean bingo = (record.get() & BINGO_AVAILABLE) != 0;
+        byte[] position = new byte[record.getShort()];
+        record.get(position);
+        byte[] rack = new byte[record.getShort()];
+        record.get(rack);
+        return new StoredPosition(new String(position, StandardCharsets.UTF_8), new String(rack, StandardCharsets.UTF_8), bingo);
+    }
+
+    /**
+     * Fills a buffer from the file, starting at the given offset.
+     *
+     * @param buffer the buffer to fill
+     * @param offset the offset to read from
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Truncated position store at offset " + offset);
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * A position read back from the store.
+     */
+    public static class StoredPosition {
+
+        private final String position;
+        private final String rack;
+        private final boolean bingoAvailable;
+
+        StoredPosition(String position, String rack, boolean bingoAvailable) {
+            this.position = position;
+            this.rack = rack;
+            this.bingoAvailable = bingoAvailable;
+        }
+
+        public String getPosition() {
+            return position;
+        }
+
+        public String getRack() {
+            return rack;
+        }
+
+        public boolean isBingoAvailable() {
+            return bingoAvailable;
+        }
+
+        @Override
+        public String toString() {
+            return position + " " + "[" + rack + "]" + (bingoAvailable ? " bingo" : "");
+        }
+    }
+
+    /**
+     * The ids of the positions with a word or a rack letter, added in increasing order: the differences between
+     * consecutive ids as varints, or a bitset once it takes less memory.
+     */
+    private static final class Postings {
+
+        private byte[] deltas = new byte[8];
+        private int length = 0;
+        private int last = -1;
+        private BitSet bits;
+
+        void add(int id) {
+            if (id == last) {
+                // A rack can hold a letter more than once
+                return;
+            }
+            if (bits != null) {
+                bits.set(id);
+                last = id;
+                return;
+            }
+            if (length + 5 > deltas.length) {
+                deltas = Arrays.copyOf(deltas, deltas.length * 2);
+            }
+            int delta = id - last;
+            while ((delta & ~0x7F) != 0) {
+                deltas[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            deltas[length++] = (byte) delta;
+            last = id;
+            // A bit per id so far, with the overhead of the bitset
+            if (length > (last >> 3) + 64) {
+                bits = new BitSet(last + 1);
+                forEach(bits::set);
+                deltas = null;
+            }
+        }
+
+        /**
+         * Clears the ids of a set that aren't in the list.
+         */
+        void retainIn(BitSet matches) {
+            if (bits != null) {
+                matches.and(bits);
+                return;
+            }
+            int[] from = {0};
+            forEach(id -> {
+                matches.clear(from[0], id);
+                from[0] = id + 1;
+            });
+            if (from[0] < matches.length()) {
+                matches.clear(from[0], matches.length());
+            }
+        }
+
+        private void forEach(IntConsumer action) {
+            int id = -1;
+            int delta = 0;
+            int shift = 0;
+            for (int i = 0; i < length; i++) {
+                byte b = deltas[i];
+                delta |= (b & 0x7F) << shift;
+                if (b < 0) {
+                    shift += 7;
+                } else {
+                    id += delta;
+                    action.accept(id);
+                    delta = 0;
+                    shift = 0;
+                }
+            }
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(last);
+            if (bits != null) {
+                out.writeBoolean(true);
+                writeBits(out, bits);
+            } else {
+                out.writeBoolean(false);
+                out.writeInt(length);
+                out.write(deltas, 0, length);
+            }
+        }
+
+        static Postings read(DataInputStream in) throws IOException {
+            Postings postings = new Postings();
+            postings.last = in.readInt();
+            if (in.readBoolean()) {
+                postings.bits = readBits(in);
+                postings.deltas = null;
+            } else {
+                postings.length = in.readInt();
+                postings.deltas = new byte[Math.max(8, postings.length)];
+                in.readFully(postings.deltas, 0, postings.length);
+            }
+            return postings;
+        }
+    }
+
+    /**
+     * A conjunction of conditions over the stored positions, evaluated on the indexes.
+     * For example, positions where the square (7, 0) was open and a bingo was available:
+     * {@code store.query().squareEmpty(7, 0).bingoAvailable().ids()}.
+     */
+    public class Query {
+
+        private final BitSet matches;
+
+        private Query() {
+            synchronized (PositionStore.this) {
+                matches = new BitSet(size);
+                matches.set(0, size);
+            }
+        }
+
+        /**
+         * Keeps the positions where the square at the given coordinates is empty.
+         *
+         * @param x the x-coordinate
+         * @param y the y-coordinate
+         * @return this query
+         */
+        public Query squareEmpty(int x, int y) {
+            synchronized (PositionStore.this) {
+                matches.andNot(occupied[y * boardSize + x]);
+            }
+            return this;
+        }
+
+        /**
+         * Keeps the positions where the square at the given coordinates holds a tile.
+         *
+         * @param x the x-coordinate
+         * @param y the y-coordinate
+         * @return this query
+         */
+        public Query squareOccupied(int x, int y) {
+            synchronized (PositionStore.this) {
+                matches.and(occupied[y * boardSize + x]);
+            }
+            return this;
+        }
+
+        /**
+         * Keeps the positions with the given word on the board.
+         *
+         * @param word the word, in uppercase
+         * @return this query
+         */
+        public Query containsWord(String word) {
+            synchronized (PositionStore.this) {
+                Postings postings = words.get(word);
+                if (postings == null) {
+                    matches.clear();
+                } else {
+                    postings.retainIn(matches);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Keeps the positions where the rack of the player to move holds the given letter.
+         *
+         * @param letter the letter, ' ' for a blank
+         * @return this query
+         */
+        public Query rackContains(char letter) {
+            synchronized (PositionStore.this) {
+                Postings postings = rackLetters.get(letter);
+                if (postings == null) {
+                    matches.clear();
+                } else {
+                    postings.retainIn(matches);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Keeps the positions where a bingo was available.
+         *
+         * @return this query
+         */
+        public Query bingoAvailable() {
+            synchronized (PositionStore.this) {
+                matches.and(PositionStore.this.bingoAvailable);
+            }
+            return this;
+        }
+
+        /**
+         * Returns the ids of the matching positions.
+         *
+         * @return the ids of the matching positions
+         */
+        public BitSet ids() {
+            return (BitSet) matches.clone();
+        }
+
+        /**
+         * Returns the number of matching positions.
+         *
+         * @return the number of matching positions
+         */
+        public int count() {
+            return matches.cardinality();
+        }
+
+        /**
+         * Reads the matching positions, up to the given limit.
+         *
+         * @param limit the maximum number of positions to read
+         * @return the matching positions, by increasing id
+         * @throws IOException if a position can't be read
+         */
+        public ArrayList<StoredPosition> fetch(int limit) throws IOException {
+            ArrayList<StoredPosition> positions = new ArrayList<StoredPosition>();
+            for (int id = matches.nextSetBit(0); id >= 0 && positions.size() < limit; id = matches.nextSetBit(id + 1)) {
+                positions.add(get(id));
+            }
+            return positions;
+        }
+    }
+}
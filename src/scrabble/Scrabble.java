@@ -6,6 +6,9 @@ package scrabble;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 import javax.swing.WindowConstants;
@@ -17,15 +20,29 @@ import javax.swing.WindowConstants;
 public class Scrabble {
 
     /**
-     * @param args the command line arguments
+     * @param args the command line arguments: optionally a board layout file, such as layouts/super.txt
      */
     public static void main(String[] args) {
         
 //        Language english = new Language("english");
 //        Game TwoPlayersEnglish = new Game(2, english);
         
+        StartupTimer startupTimer = new StartupTimer();
+        // The word list is read in the background while the window opens and the racks are drawn,
+        // the first word placed waits for it if needed
         Language français = new Language("français");
-        Game TwoPlayersFrench = new Game(2, français);
+        CompletableFuture<ValidWords> frenchWords = SharedDictionary.preload(français);
+        frenchWords.thenAccept(startupTimer::wordListLoaded);
+        BoardLayout layout = BoardLayout.CLASSIC;
+        if (args.length > 0) {
+            try {
+                layout = BoardLayout.load(Path.of(args[0]));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Couldn't read layout " + args[0] + ", playing on the classic board: " + e.getMessage());
+            }
+        }
+        Game TwoPlayersFrench = new Game(2, français, layout, frenchWords);
+        TwoPlayersFrench.setStartupTimer(startupTimer);
         TwoPlayersFrench.StartManualGame();
 //        
 //        ValidWords validWords = new ValidWords(english);
@@ -0,0 +1,158 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The {@code ScrabbleEvents} class groups the JDK Flight Recorder events of the game, to find out why a turn
+ * was slow from a recording ({@code java -XX:StartFlightRecording ...}, then {@code jfr print --categories Scrabble}).
+ * <p>
+ * Events are used the JFR way: created and begun around the work, then fields set and committed only if
+ * {@code shouldCommit()}; when nothing is recording, the JIT removes them altogether. Bag draws are frequent and
+ * cheap, so they are disabled by default and have to be enabled in the recording settings.
+ * </p>
+ *
+ * @author agueguen
+ */
+public final class ScrabbleEvents {
+
+    private ScrabbleEvents() {
+    }
+
+    /**
+     * A turn played through {@link Game#playTurn}.
+     */
+    @Name("scrabble.Turn")
+    @Label("Turn")
+    @Category("Scrabble")
+    @Description("A player's turn: validating, placing the word, drawing new tiles")
+    public static class Turn extends Event {
+
+        @Label("Player")
+        int player;
+
+        @Label("Word")
+        String word;
+
+        @Label("Valid")
+        boolean valid;
+
+        @Label("Score")
+        int score;
+
+        @Label("Tiles Placed")
+        int tilesPlaced;
+
+        @Label("Tiles Left In Bag")
+        int bagSize;
+    }
+
+    /**
+     * The validation of a placement by a {@link Player}.
+     */
+    @Name("scrabble.Placement")
+    @Label("Placement")
+    @Category("Scrabble")
+    @Description("Checking and scoring a word placement")
+    @StackTrace(false)
+    public static class PlacementCheck extends Event {
+
+        @Label("Word")
+        String word;
+
+        @Label("X")
+        int x;
+
+        @Label("Y")
+        int y;
+
+        @Label("Down")
+        boolean directionIsDown;
+
+        @Label("Valid")
+        boolean valid;
+
+        @Label("Reason")
+        @Description("Why the placement was refused, if it was")
+        String reason;
+
+        @Label("Score")
+        int score;
+    }
+
+    /**
+     * The loading of a word list or of a language's letters.
+     */
+    @Name("scrabble.DictionaryLoad")
+    @Label("Dictionary Load")
+    @Category("Scrabble")
+    @Description("Reading a word list or the letters of a language from disk")
+    public static class DictionaryLoad extends Event {
+
+        @Label("Language")
+        String language;
+
+        @Label("Kind")
+        @Description("\"words\" for a word list, \"trie\" for a word list mapped off the heap, \"letters\" for the letters of a language")
+        String kind;
+
+        @Label("Entries")
+        int entries;
+
+        @Label("Version")
+        @Description("Version of the word list, 0 for letters")
+        long version;
+    }
+
+    /**
+     * A tile drawn from a {@link Bag}.
+     */
+    @Name("scrabble.BagDraw")
+    @Label("Bag Draw")
+    @Category("Scrabble")
+    @Enabled(false)
+    @StackTrace(false)
+    public static class BagDraw extends Event {
+
+        @Label("Letter")
+        char letter;
+
+        @Label("Tiles Left")
+        int tilesLeft;
+    }
+
+    /**
+     * The painting of a {@link Board}, on screen or offscreen.
+     */
+    @Name("scrabble.Repaint")
+    @Label("Board Repaint")
+    @Category("Scrabble")
+    @StackTrace(false)
+    public static class Repaint extends Event {
+
+        @Label("Width")
+        int width;
+
+        @Label("Height")
+        int height;
+
+        @Label("Squares Visited")
+        @Description("Squares within the clip")
+        int squares;
+
+        @Label("Tiles Painted")
+        int tiles;
+
+        @Label("Render Cache Rebuilt")
+        boolean cacheRebuilt;
+    }
+}
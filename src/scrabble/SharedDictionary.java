@@ -0,0 +1,124 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code SharedDictionary} class is a handle on the current word list of a language, shared by every game
+ * and reloadable without stopping them.
+ * <p>
+ * Reading the current word list is a single volatile read, with no lock. A reload reads the updated
+ * {@code <language>.txt} into a new {@link ValidWords} aside, then publishes it with one volatile write:
+ * games created afterwards get the new list, while games already running keep the version they started with
+ * (see {@link Game}), so a game never validates two words against different lists.
+ * </p>
+ * <p>
+ * The word lists are kept on the heap unless {@link #setOffHeap(boolean)} was called first, in which case they're
+ * mapped from a file with {@link ValidWords#offHeap(Language)}.
+ * </p>
+ *
+ * @see ValidWords
+ *
+ * @author agueguen
+ */
+public class SharedDictionary {
+
+    private static final ConcurrentHashMap<String, SharedDictionary> DICTIONARIES = new ConcurrentHashMap<String, SharedDictionary>();
+    private static volatile boolean offHeap = false;
+
+    private final Language language;
+    private volatile ValidWords current;
+
+    /**
+     * Constructs a {@code SharedDictionary} and loads the word list of the language.
+     *
+     * @param language the language of the word list
+     */
+    private SharedDictionary(Language language) {
+        this.language = language;
+        this.current = load(language);
+    }
+
+    /**
+     * Sets whether the word lists loaded or reloaded from now on are kept off the heap.
+     *
+     * @param offHeap true to map the word lists from files, false to read them on the heap
+     */
+    public static void setOffHeap(boolean offHeap) {
+        SharedDictionary.offHeap = offHeap;
+    }
+
+    private static ValidWords load(Language language) {
+        return offHeap ? ValidWords.offHeap(language) : new ValidWords(language);
+    }
+
+    /**
+     * Returns the dictionary of a language, loading its word list the first time it's asked for.
+     *
+     * @param language the language of the word list
+     * @return the shared dictionary of the language
+     */
+    public static SharedDictionary forLanguage(Language language) {
+        return DICTIONARIES.computeIfAbsent(language.getName(), name -> new SharedDictionary(language));
+    }
+
+    /**
+     * Loads the word list of a language in a background thread, if it isn't loaded yet.
+     *
+     * @param language the language of the word list
+     * @return a future completed with the current word list of the language once it's loaded
+     */
+    public static CompletableFuture<ValidWords> preload(Language language) {
+        return CompletableFuture.supplyAsync(() -> forLanguage(language).current());
+    }
+
+    /**
+     * Returns the current word list. Lock-free, the word list returned never changes afterwards.
+     *
+     * @return the current word list
+     */
+    public ValidWords current() {
+        return current;
+    }
+
+    /**
+     * Reads the word list file of the language again and makes it the current word list.
+     * Readers are never blocked, they see either the previous list or the new one. A Bloom filter enabled on the
+     * previous list is built for the new one before it's published. Concurrent reloads are done one at a time.
+     * If the file can't be read, or has no words left, the previous list stays the current one.
+     *
+     * @return the new current word list
+     * @throws UncheckedIOException if the file can't be read
+     * @throws IllegalStateException if the file has no words
+     */
+    public synchronized ValidWords reload() {
+        ValidWords previous = current;
+        ValidWords reloaded = load(language);
+        if (reloaded.size() == 0) {
+            throw new IllegalStateException("The " + language.getName() + " word list has no words, keeping version " + previous.getVersion());
+        }
+        if (previous.getBloomFalsePositiveRate() > 0) {
+            reloaded.enableBloomFilter(previous.getBloomFalsePositiveRate());
+        }
+        current = reloaded;
+        return reloaded;
+    }
+
+    /**
+     * Reloads the word list in a background thread, see {@link #reload()}.
+     *
+     * @return a future completed with the new word list once it's published
+     */
+    public CompletableFuture<ValidWords> reloadInBackground() {
+        return CompletableFuture.supplyAsync(this::reload);
+    }
+
+    public Language getLanguage() {
+        return language;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+/**
+ * The {@code StartupTimer} class measures how long the application takes to become usable:
+ * the time to the first frame of the board window, to the word list being loaded and to the first valid move.
+ * Each milestone is printed the first time it's reached.
+ *
+ * @see Scrabble
+ *
+ * @author agueguen
+ */
+public class StartupTimer {
+
+    private final long start = System.nanoTime();
+    private volatile long firstFrame = -1;
+    private volatile long wordListLoaded = -1;
+    private volatile long firstValidMove = -1;
+
+    /**
+     * Records that the board window was shown.
+     */
+    public synchronized void firstFrame() {
+        if (firstFrame < 0) {
+            firstFrame = System.nanoTime() - start;
+            System.out.println("Time to first frame: " + firstFrame / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Records that the word list was loaded.
+     *
+     * @param validWords the loaded word list
+     */
+    public synchronized void wordListLoaded(ValidWords validWords) {
+        if (wordListLoaded < 0) {
+            wordListLoaded = System.nanoTime() - start;
+            System.out.println("Word list loaded (" + validWords.size() + " words) after " + wordListLoaded / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Records that a valid move was played.
+     */
+    public synchronized void firstValidMove() {
+        if (firstValidMove < 0) {
+            firstValidMove = System.nanoTime() - start;
+            System.out.println("Time to first valid move: " + firstValidMove / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Returns the time from the start to the first frame.
+     *
+     * @return the time in milliseconds, -1 if no frame was shown yet
+     */
+    public long getTimeToFirstFrameMillis() {
+        return firstFrame < 0 ? -1 : firstFrame / 1_000_000;
+    }
+
+    /**
+     * Returns the time from the start to the word list being loaded.
+     *
+     * @return the time in milliseconds, -1 if the word list isn't loaded yet
+     */
+    public long getTimeToWordListMillis() {
+        return wordListLoaded < 0 ? -1 : wordListLoaded / 1_000_000;
+    }
+
+    /**
+     * Returns the time from the start to the first valid move.
+     *
+     * @return the time in milliseconds, -1 if no valid move was played yet
+     */
+    public long getTimeToFirstValidMoveMillis() {
+        return firstValidMove < 0 ? -1 : firstValidMove / 1_000_000;
+    }
+}
@@ -6,10 +6,13 @@ package scrabble;
  */
 
 /**
- * The {@code Tile} class represents a single tile in the Scrabble game.
+ * The {@code Tile} class represents a kind of tile in the Scrabble game.
  * A tile has a letter and a corresponding value based on the specified language configuration.
  * <p>
- * The value of the tile is determined by looking up the letter in the {@code Language} object provided during construction.
+ * Tiles are immutable and shared: a {@code Language} holds one {@code Tile} per letter, returned by
+ * {@link Language#getTile(char)}, and every bag, rack and board refers to these instances. Physical tiles
+ * with the same letter are therefore the same object, and tiles can be shared across threads and games.
+ * The letter a blank stands for once placed is kept by the {@code Board} it is placed on, not by the tile.
  * </p>
  * 
  * @see Language
@@ -18,27 +21,26 @@ package scrabble;
  * 
  * @author agueguen
  */
-public class Tile {
+public final class Tile {
     
-    private Character letter;
-    private Integer value;
+    private final char letter;
+    private final int value;
+    private final int code;
 
     /**
-     * Constructs a {@code Tile} object with the specified letter and language configuration.
-     * The value of the tile is retrieved from the provided {@code Language} object.
+     * Constructs a {@code Tile} object with the specified letter, value and letter code.
+     * Only used by {@code Language} to create its shared tiles, once its letters are encoded.
      * 
      * @param letter the letter represented by the tile
-     * @param language the {@code Language} object containing the values for letters
+     * @param value the value of the letter in the language
+     * @param code the code of the letter in the alphabet of the language
      */
-    public Tile(char letter, Language language) {
+    Tile(char letter, int value, int code) {
         this.letter = letter;
-        this.value = language.getValues().get(letter);
+        this.value = value;
+        this.code = code;
     }
 
-    public Tile() {
-    }
-    
-
     /**
      * Returns a string representation of the tile.
      * The string representation consists of the letter enclosed in square brackets.
@@ -50,24 +52,36 @@ public class Tile {
         return "[" + letter + "]";
     }
 
-    public Character getLetter() {
+    /**
+     * Returns the letter on the tile.
+     * 
+     * @return the letter, ' ' for a blank
+     */
+    public char getLetter() {
         return letter;
     }
 
-    public Integer getValue() {
+    public int getValue() {
         return value;
     }
 
     /**
-     * Setter for this Tile's letter, to be used for viewing and resetting blanks
-     * @param letter letter on the tile
+     * Returns the code of the letter in the alphabet of the tile's language.
+     * 
+     * @return the code of the letter
+     * @see Alphabet
      */
-    public void setLetter(Character letter) {
-        this.letter = letter;
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Returns whether this tile is a blank, which can stand for any letter.
+     * 
+     * @return true if the tile is a blank
+     */
+    public boolean isBlank() {
+        return code == Alphabet.BLANK;
     }
-    
-    
-    
-    
 
 }
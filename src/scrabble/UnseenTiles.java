@@ -0,0 +1,362 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.function.Supplier;
+
+/**
+ * The {@code UnseenTiles} class tracks the tiles a player hasn't seen, those in the bag or on the other players'
+ * racks, and gives the exact probabilities of what the player can draw from them.
+ * <p>
+ * The tracker starts from the distribution of the language and is told about every tile the player sees, as the
+ * player draws it or as another player places it, so keeping it up to date costs one decrement per tile. Draws are
+ * modelled as drawing without replacement from the unseen tiles, whose probabilities are hypergeometric: they're
+ * computed from a table of binomial coefficients built once, and the bingo probability of each leave is remembered
+ * until the next tile is seen, so they can be asked for every candidate move.
+ * </p>
+ * <p>
+ * A tracker belongs to one player's view of one game and isn't thread-safe.
+ * </p>
+ *
+ * @see Game#getUnseenTiles(int)
+ * @see BingoRacks
+ *
+ * @author agueguen
+ */
+public class UnseenTiles {
+
+    // Binomial coefficients C(n, k) for every number of tiles n and every draw k up to a full rack
+    private static final int MAX_TILES = 1024;
+    private static final double[][] BINOMIAL = new double[MAX_TILES + 1][BingoRacks.RACK_SIZE + 1];
+
+    static {
+        for (int n = 0; n <= MAX_TILES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, BingoRacks.RACK_SIZE); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final Language language;
+    private final Supplier<ValidWords> validWords;
+    private final int[] counts;
+    private int total;
+    private BingoRacks bingoRacks;
+    // Bingo probabilities of the leaves asked for since the last tile was seen, by packed sorted leave
+    private final HashMap<Long, Double> bingoProbabilities = new HashMap<Long, Double>();
+
+    /**
+     * Constructs a tracker that hasn't seen any tile yet: every tile of the language is unseen.
+     *
+     * @param language the language of the game
+     * @param validWords the valid words, only asked for the first time a bingo probability is
+     * @throws IllegalArgumentException if the language has more tiles than the tracker handles
+     */
+    public UnseenTiles(Language language, Supplier<ValidWords> validWords) {
+        this.language = language;
+        this.validWords = validWords;
+        this.counts = language.getDistributionByCode().clone();
+        this.total = Arrays.stream(counts).sum();
+        if (total > MAX_TILES) {
+            throw new IllegalArgumentException(language.getName() + " has " + total + " tiles, at most " + MAX_TILES + " are supported");
+        }
+    }
+
+    /**
+     * Constructs the tracker of a player joining a game in progress: the tiles on the board and on the player's
+     * rack are seen.
+     *
+     * @param language the language of the game
+     * @param board the board of the game
+     * @param player the player
+     * @return the tracker of the player
+     */
+    public static UnseenTiles of(Language language, Board board, Player player) {
+        UnseenTiles unseen = new UnseenTiles(language, player::getValidWords);
+        int size = board.getBoardSize();
+        for (int square = 0; square < size * size; square++) {
+            if (board.isOccupied(square)) {
+                unseen.see(board.getTile(square));
+            }
+        }
+        unseen.seeAll(player.getTileRack());
+        return unseen;
+    }
+
+    /**
+     * Removes a tile the player has seen, drawn or placed by another player, from the unseen tiles.
+     *
+     * @param tile the tile seen
+     * @throws IllegalArgumentException if all the tiles of that letter were already seen
+     */
+    public void see(Tile tile) {
+        int code = tile.getCode();
+        if (counts[code] == 0) {
+            throw new IllegalArgumentException("Every " + tile + " tile was already seen");
+        }
+        counts[code]--;
+        total--;
+        bingoProbabilities.clear();
+    }
+
+    /**
+     * Removes tiles the player has seen from the unseen tiles, see {@link #see(Tile)}.
+     *
+     * @param tiles the tiles seen
+     */
+    public void seeAll(Collection<Tile> tiles) {
+        for (Tile tile : tiles) {
+            see(tile);
+        }
+    }
+
+    /**
+     * Returns the number of unseen tiles of a letter.
+     *
+     * @param tile a tile of the letter, or a blank
+     * @return the number of tiles of that letter the player hasn't seen
+     */
+    public int getUnseen(Tile tile) {
+        return counts[tile.getCode()];
+    }
+
+    /**
+     * Returns the number of unseen tiles, in the bag and on the other players' racks.
+     *
+     * @return the number of unseen tiles
+     */
+    public int getUnseenCount() {
+        return total;
+    }
+
+    /**
+     * Returns the unseen tiles, one per tile, in alphabet order with the blanks first.
+     *
+     * @return the unseen tiles
+     */
+    public ArrayList<Tile> getUnseenTiles() {
+        ArrayList<Tile> tiles = new ArrayList<Tile>(total);
+        for (int code = 0; code < counts.length; code++) {
+            for (int i = 0; i < counts[code]; i++) {
+                tiles.add(language.getTile(code));
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * Returns the probability of drawing at least some copies of a letter.
+     *
+     * @param tile a tile of the letter, or a blank
+     * @param copies the number of copies wanted
+     * @param draws the number of tiles drawn
+     * @return the probability that at least {@code copies} of the {@code draws} tiles are that letter
+     */
+    public double probabilityOfDrawing(Tile tile, int copies, int draws) {
+        return probabilityOfDrawing(Collections.nCopies(copies, tile), draws);
+    }
+
+    /**
+     * Returns the probability that the tiles drawn include some tiles, e.g. the letters missing for a word.
+     *
+     * @param wanted the tiles wanted, a letter appearing as many times as it's wanted
+     * @param draws the number of tiles drawn, at most a full rack
+     * @return the probability that the {@code draws} tiles include every tile wanted
+     * @throws IllegalArgumentException if more tiles than a full rack are drawn
+     */
+    public double probabilityOfDrawing(Collection<Tile> wanted, int draws) {
+        checkDraws(draws);
+        draws = Math.min(draws, total);
+        int[] needed = new int[counts.length];
+        for (Tile tile : wanted) {
+            needed[tile.getCode()]++;
+        }
+        int[] codes = new int[wanted.size()];
+        int letters = 0;
+        int rest = total;
+        for (int code = 0; code < counts.length; code++) {
+            if (needed[code] > counts[code]) {
+                return 0;
+            }
+            if (needed[code] > 0) {
+                codes[letters++] = code;
+                rest -= counts[code];
+            }
+        }
+        if (wanted.size() > draws) {
+            return 0;
+        }
+        return waysToInclude(codes, letters, 0, needed, draws, rest) / BINOMIAL[total][draws];
+    }
+
+    /**
+     * Counts the draws of {@code draws} tiles including at least the needed copies of the letters from
+     * {@code codes[index]} on, {@code rest} being the number of tiles of the other letters.
+     */
+    private double waysToInclude(int[] codes, int letters, int index, int[] needed, int draws, int rest) {
+        if (index == letters) {
+            return binomial(rest, draws);
+        }
+        int code = codes[index];
+        double ways = 0;
+        for (int copies = needed[code]; copies <= Math.min(counts[code], draws); copies++) {
+            ways += BINOMIAL[counts[code]][copies] * waysToInclude(codes, letters, index + 1, needed, draws - copies, rest);
+        }
+        return ways;
+    }
+
+    /**
+     * Returns the probability that a leave makes a bingo rack once refilled: that the tiles kept and the tiles
+     * drawn from the unseen tiles are the letters of a valid word of a full rack.
+     * <p>
+     * The draws completing the leave into different bingo racks are disjoint, so the probability is the sum over the
+     * bingo racks holding the leave of the number of ways to draw the missing tiles, over the number of possible draws.
+     * The bingo racks are either matched against every possible draw, or gone through when there are fewer of them.
+     * </p>
+     *
+     * @param leave the tiles kept on the rack after a move
+     * @param bagSize the number of tiles in the bag, if it can't refill the rack there's no bingo
+     * @return the probability of drawing into a bingo rack
+     */
+    public double bingoProbability(Collection<Tile> leave, int bagSize) {
+        int draws = BingoRacks.RACK_SIZE - leave.size();
+        if (draws < 0 || draws > Math.min(bagSize, total)) {
+            return 0;
+        }
+        if (bingoRacks == null) {
+            bingoRacks = BingoRacks.of(validWords.get(), language);
+        }
+        int[] kept = new int[leave.size()];
+        int i = 0;
+        for (Tile tile : leave) {
+            kept[i++] = tile.getCode();
+        }
+        Arrays.sort(kept);
+        // With the length, as the blank's code is 0: leaves of blanks only differ by their number of tiles
+        Long key = BingoRacks.pack(kept, 0, kept.length) | ((long) kept.length << (6 * BingoRacks.RACK_SIZE));
+        Double probability = bingoProbabilities.get(key);
+        if (probability == null) {
+            int blanks = 0;
+            while (blanks < kept.length && kept[blanks] == Alphabet.BLANK) {
+                blanks++;
+            }
+            double ways;
+            if (blanks > bingoRacks.getMaxBlanks()) {
+                ways = 0;
+            } else if (binomial(counts.length + draws - 1, draws) < racksToScan(blanks, draws)) {
+                int[] rack = Arrays.copyOf(kept, BingoRacks.RACK_SIZE);
+                ways = waysToDrawBingo(rack, kept.length, 0, 1);
+            } else {
+                ways = waysToCompleteBingo(kept, blanks, draws);
+            }
+            probability = ways / BINOMIAL[total][draws];
+            bingoProbabilities.put(key, probability);
+        }
+        return probability;
+    }
+
+    /**
+     * Counts the draws completing a rack into a bingo rack by going through every possible draw,
+     * the tiles from {@code rack[length]} on being drawn with letter codes from {@code code} on.
+     */
+    private double waysToDrawBingo(int[] rack, int length, int code, double ways) {
+        if (length == rack.length) {
+            return bingoRacks.isBingo(rack) ? ways : 0;
+        }
+        double sum = 0;
+        for (int c = code; c < counts.length; c++) {
+            int copies = 0;
+            // Draw as many copies of the letter as this branch takes, then the next letters
+            while (copies < counts[c] && length + copies < rack.length) {
+                rack[length + copies] = c;
+                copies++;
+                sum += waysToDrawBingo(rack, length + copies, c + 1, ways * BINOMIAL[counts[c]][copies]);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Counts the draws completing a sorted leave into a bingo rack by going through the bingo racks that hold it.
+     */
+    private double waysToCompleteBingo(int[] kept, int keptBlanks, int draws) {
+        int letters = kept.length - keptBlanks;
+        int[] rack = new int[BingoRacks.RACK_SIZE];
+        double ways = 0;
+        for (int blanks = keptBlanks; blanks <= Math.min(bingoRacks.getMaxBlanks(), keptBlanks + Math.min(draws, counts[Alphabet.BLANK])); blanks++) {
+            int length = BingoRacks.RACK_SIZE - blanks;
+            if (length < letters) {
+                break;
+            }
+            double blankWays = BINOMIAL[counts[Alphabet.BLANK]][blanks - keptBlanks];
+            for (long packed : bingoRacks.getRacks(blanks)) {
+                BingoRacks.unpack(packed, length, rack);
+                double rackWays = blankWays;
+                int k = keptBlanks;
+                int r = 0;
+                // Both are sorted: walk the rack, matching the letters kept and counting the runs of letters to draw
+                while (r < length && rackWays > 0) {
+                    int code = rack[r];
+                    int copies = 0;
+                    while (r < length && rack[r] == code) {
+                        r++;
+                        copies++;
+                    }
+                    while (k < kept.length && kept[k] < code) {
+                        rackWays = 0;
+                        k++;
+                    }
+                    while (k < kept.length && kept[k] == code && copies > 0) {
+                        k++;
+                        copies--;
+                    }
+                    if (copies > counts[code]) {
+                        rackWays = 0;
+                    } else if (copies > 0) {
+                        rackWays *= BINOMIAL[counts[code]][copies];
+                    }
+                }
+                if (k == kept.length) {
+                    ways += rackWays;
+                }
+            }
+        }
+        return ways;
+    }
+
+    private int racksToScan(int keptBlanks, int draws) {
+        int racks = 0;
+        for (int blanks = keptBlanks; blanks <= Math.min(bingoRacks.getMaxBlanks(), keptBlanks + draws); blanks++) {
+            racks += bingoRacks.getRacks(blanks).length;
+        }
+        return racks;
+    }
+
+    private static double binomial(int n, int k) {
+        if (k < 0 || k > n) {
+            return 0;
+        }
+        if (n <= MAX_TILES && k <= BingoRacks.RACK_SIZE) {
+            return BINOMIAL[n][k];
+        }
+        double result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return result;
+    }
+
+    private static void checkDraws(int draws) {
+        if (draws < 0 || draws > BingoRacks.RACK_SIZE) {
+            throw new IllegalArgumentException("Can't draw " + draws + " tiles, at most " + BingoRacks.RACK_SIZE);
+        }
+    }
+}
@@ -6,45 +6,265 @@ package scrabble;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The ValidWords class is responsible for reading and storing a set of valid Scrabble words
  * from a file specific to a given language.
+ * <p>
+ * The words are kept either in a set on the heap, or only in a {@link WordTrie} mapped from a file off the heap
+ * (see {@link #offHeap(Language)}), which keeps the heap and the garbage collections small however many word lists
+ * are loaded.
+ * </p>
  * 
  * @author agueguen
  */
 public class ValidWords {
+
+    // Source of version numbers, so every loaded word list can be told apart
+    private static final AtomicLong VERSIONS = new AtomicLong();
     
     private File validWordsFile;
+    // Null when the words are only kept off the heap, in the trie
     private HashSet<String> validWords = new HashSet<String>();
+    private final long version = VERSIONS.incrementAndGet();
+    private volatile BloomFilter bloomFilter;
+    private volatile WordTrie trie;
+    private volatile double bloomFalsePositiveRate;
+    private volatile long fingerprint;
+    // Fingerprint of the lines of the word list file, as read
+    private long source;
 
     /**
      * Constructs a ValidWords object for the specified language.
      * Reads the valid words from a file corresponding to the language.
      * 
      * @param language the language for which to load valid words
+     * @throws UncheckedIOException if the file can't be read
      */
     public ValidWords(Language language) {
+        ScrabbleEvents.DictionaryLoad event = new ScrabbleEvents.DictionaryLoad();
+        event.begin();
         validWordsFile = new File(language.getName() + ".txt");
-        try {
-            Scanner reader = new Scanner(validWordsFile);
+        try (Scanner reader = new Scanner(validWordsFile)) {
             while (reader.hasNextLine()) {
-                this.validWords.add(reader.nextLine().split(" ")[0]);
+                String word = reader.nextLine().split(" ")[0];
+                this.validWords.add(word);
+                source = addToSource(source, word);
             }
         } catch (IOException e) {
-            System.out.println("An error occurred.");
-            e.printStackTrace();
+            throw new UncheckedIOException("Could not read the " + language.getName() + " word list " + validWordsFile, e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.language = language.getName();
+            event.kind = "words";
+            event.entries = validWords.size();
+            event.version = version;
+            event.commit();
+        }
+    }
+
+    /**
+     * Constructs a ValidWords object whose words are only kept in a trie.
+     * 
+     * @param language the language of the words
+     * @param trie the trie of the words, with their fingerprint
+     */
+    private ValidWords(Language language, WordTrie trie) {
+        ScrabbleEvents.DictionaryLoad event = new ScrabbleEvents.DictionaryLoad();
+        event.begin();
+        this.validWordsFile = new File(language.getName() + ".txt");
+        this.validWords = null;
+        this.trie = trie;
+        this.fingerprint = trie.getFingerprint();
+        event.end();
+        if (event.shouldCommit()) {
+            event.language = language.getName();
+            event.kind = "trie";
+            event.entries = trie.wordCount();
+            event.version = version;
+            event.commit();
+        }
+    }
+
+    /**
+     * Loads the valid words of a language off the heap: they're kept in a trie mapped from {@code <language>.trie}.
+     * The trie is built from the word list the first time, and again whenever the file holds a trie built from
+     * other words: the word list is read through to check, but without keeping its words. The trie file is replaced
+     * at once, so lists mapped from the previous one keep working. If the trie can't be written or mapped, the words
+     * are loaded on the heap instead.
+     * 
+     * @param language the language for which to load valid words
+     * @return the valid words
+     */
+    public static ValidWords offHeap(Language language) {
+        File words = new File(language.getName() + ".txt");
+        Path file = Path.of(language.getName() + ".trie");
+        try {
+            WordTrie trie;
+            try {
+                trie = WordTrie.map(file, sourceFingerprint(words));
+            } catch (NoSuchFileException | IllegalArgumentException e) {
+                // Missing, cut short or built from other words
+                ValidWords loaded = new ValidWords(language);
+                WordTrie.build(loaded.validWords, loaded.getFingerprint(), loaded.source).write(file);
+                trie = WordTrie.map(file, loaded.source);
+            }
+            return new ValidWords(language, trie);
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("Could not map " + file + ", loading the " + language.getName() + " words on the heap: " + e.getMessage());
+            return new ValidWords(language);
         }
     }
 
     /**
-     * Returns the set of valid words.
+     * Returns the fingerprint of the lines of a word list file, read as the constructor reads them.
+     * 
+     * @param words the word list file
+     * @return a hash of the words of the file, in order, duplicates included
+     * @throws IOException if the file can't be read
+     */
+    private static long sourceFingerprint(File words) throws IOException {
+        long source = 0;
+        try (Scanner reader = new Scanner(words)) {
+            while (reader.hasNextLine()) {
+                source = addToSource(source, reader.nextLine().split(" ")[0]);
+            }
+        }
+        return source;
+    }
+
+    private static long addToSource(long source, String word) {
+        return source * 31 + BloomFilter.hash(word);
+    }
+
+    /**
+     * Returns the set of valid words. When the words are kept off the heap, a new set is built on the heap
+     * at each call: prefer {@link #contains(String)}, {@link #size()} or {@link #getTrie()}.
      * 
      * @return a HashSet containing the valid words
      */
     public HashSet<String> getValidWords() {
+        if (validWords == null) {
+            HashSet<String> words = new HashSet<String>();
+            trie.forEachWord(words::add);
+            return words;
+        }
         return validWords;
     }
+
+    /**
+     * Returns the number of valid words.
+     * 
+     * @return the number of valid words
+     */
+    public int size() {
+        return validWords == null ? trie.wordCount() : validWords.size();
+    }
+
+    /**
+     * Returns whether the words are only kept off the heap, see {@link #offHeap(Language)}.
+     * 
+     * @return true if the words are in a trie off the heap
+     */
+    public boolean isOffHeap() {
+        return validWords == null;
+    }
+
+    /**
+     * Returns a prefix tree of the valid words, built the first time it's asked for.
+     * 
+     * @return the prefix tree of the valid words
+     */
+    public WordTrie getTrie() {
+        WordTrie built = trie;
+        if (built == null) {
+            synchronized (this) {
+                built = trie;
+                if (built == null) {
+                    built = WordTrie.build(validWords);
+                    trie = built;
+                }
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Returns the version of this word list. Each {@code ValidWords} loaded gets a new, higher version.
+     * 
+     * @return the version of the word list
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a fingerprint of the words of this list. Unlike the version, it's the same every time the same words
+     * are loaded, so files computed from a word list can tell whether it has changed since.
+     * 
+     * @return a hash of the valid words, whatever their order
+     */
+    public long getFingerprint() {
+        long computed = fingerprint;
+        if (computed == 0) {
+            computed = validWords.size();
+            for (String word : validWords) {
+                computed += BloomFilter.hash(word);
+            }
+            fingerprint = computed;
+        }
+        return computed;
+    }
+
+    /**
+     * Checks whether a word is valid.
+     * If a Bloom filter is enabled, most invalid words are rejected by it before looking in the set of valid words.
+     * 
+     * @param word the word to check
+     * @return true if the word is valid, false otherwise
+     */
+    public boolean contains(String word) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(word)) {
+            return false;
+        }
+        return validWords == null ? trie.contains(word) : validWords.contains(word);
+    }
+
+    /**
+     * Builds a Bloom filter of the valid words, checked before the set of valid words by {@link #contains(String)}.
+     * Worth enabling when most words checked are invalid, e.g. when generating candidate words.
+     * 
+     * @param falsePositiveRate the share of invalid words the filter lets through, e.g. 0.01
+     * @return the filter built
+     */
+    public BloomFilter enableBloomFilter(double falsePositiveRate) {
+        bloomFilter = new BloomFilter(getValidWords(), falsePositiveRate);
+        bloomFalsePositiveRate = falsePositiveRate;
+        return bloomFilter;
+    }
+
+    /**
+     * Stops checking words against the Bloom filter.
+     */
+    public void disableBloomFilter() {
+        bloomFilter = null;
+        bloomFalsePositiveRate = 0;
+    }
+
+    /**
+     * Returns the false positive rate the Bloom filter was built with.
+     * 
+     * @return the false positive rate, or 0 if no filter is enabled
+     */
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
 }
@@ -0,0 +1,573 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package scrabble;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * The {@code WordTrie} class is a prefix tree of the valid words, used to extend words letter by letter
+ * and give up as soon as no valid word starts with the letters so far.
+ * <p>
+ * The trie is stored in flat arrays: nodes are numbers, the edges leaving a node are contiguous and sorted
+ * by letter, from {@link #firstEdge(int)} (inclusive) to {@link #lastEdge(int)} (exclusive).
+ * Once built it never changes, so it can be read by any number of threads.
+ * </p>
+ * <p>
+ * The arrays are either on the heap, as built from a word list, or views of one buffer off the heap: a direct buffer
+ * ({@link #toDirect()}) or a file mapped in memory ({@link #map(Path)}). Off the heap, the trie is a handful of
+ * objects whatever the number of words, so the garbage collector doesn't have to go through it.
+ * File layout, little-endian: magic, format, number of nodes and of edges (ints), fingerprint of the words and of
+ * the word list file they were read from (longs), then the first edges, last edges, edge targets and terminal bits of the nodes as ints, the edge labels as chars
+ * and the node heights as bytes. The file is replaced at once when written again, so that tries already mapped from it
+ * keep reading the previous one.
+ * </p>
+ *
+ * @see ValidWords#getTrie()
+ *
+ * @author agueguen
+ */
+public abstract class WordTrie {
+
+    private static final int MAGIC = 0x54524945; // "TRIE"
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8;
+
+    private final int nodes;
+    private final int edges;
+    private final long fingerprint;
+    private final long source;
+
+    private WordTrie(int nodes, int edges, long fingerprint, long source) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.fingerprint = fingerprint;
+        this.source = source;
+    }
+
+    /**
+     * Builds a {@code WordTrie} holding the given words, on the heap.
+     *
+     * @param words the words
+     * @return the trie
+     */
+    public static WordTrie build(Collection<String> words) {
+        return build(words, 0, 0);
+    }
+
+    /**
+     * Builds a {@code WordTrie} holding the given words, on the heap.
+     *
+     * @param words the words
+     * @param fingerprint the fingerprint of the words, see {@link ValidWords#getFingerprint()}
+     * @param source the fingerprint of the word list file the words were read from, see {@link #map(Path, long)}
+     * @return the trie
+     */
+    static WordTrie build(Collection<String> words, long fingerprint, long source) {
+        return new OnHeap(new Builder(words), fingerprint, source);
+    }
+
+    /**
+     * Maps a trie written by {@link #write(Path)} in memory, without reading it onto the heap.
+     *
+     * @param file the file of the trie
+     * @return the trie
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file doesn't hold a trie
+     */
+    public static WordTrie map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return OffHeap.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Maps a trie written by {@link #write(Path)} in memory, checking that it was built from a given word list file.
+     *
+     * @param file the file of the trie
+     * @param source the fingerprint of the word list file the trie should have been built from
+     * @return the trie
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the file doesn't hold a trie, or a trie built from another word list
+     */
+    static WordTrie map(Path file, long source) throws IOException {
+        WordTrie trie = map(file);
+        if (trie.source != source) {
+            throw new IllegalArgumentException(file + " was built from another word list");
+        }
+        return trie;
+    }
+
+    /**
+     * Copies this trie off the heap, into a direct buffer.
+     *
+     * @return the copy
+     */
+    public WordTrie toDirect() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) sizeInBytes());
+        put(buffer);
+        return OffHeap.read(buffer.flip());
+    }
+
+    /**
+     * Writes this trie to a file, in the layout read by {@link #map(Path)}. The trie is written to a temporary file
+     * next to it, then moved over it: the file never holds part of a trie, and tries mapped from the previous file
+     * keep their contents.
+     *
+     * @param file the file
+     * @throws IOException if the file can't be written
+     */
+    public void write(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) sizeInBytes());
+        put(buffer);
+        buffer.flip();
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the root node, matching the empty prefix.
+     *
+     * @return the root node
+     */
+    public int root() {
+        return 0;
+    }
+
+    /**
+     * Follows the edge of a node labelled with the given letter.
+     *
+     * @param node the node
+     * @param letter the letter
+     * @return the node reached, or -1 if no word continues with that letter
+     */
+    public int child(int node, char letter) {
+        int low = firstEdge(node);
+        int high = lastEdge(node) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char label = label(middle);
+            if (label < letter) {
+                low = middle + 1;
+            } else if (label > letter) {
+                high = middle - 1;
+            } else {
+                return target(middle);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Follows the letters of a word from a node.
+     *
+     * @param node the node to start from
+     * @param letters the letters to follow
+     * @return the node reached, or -1 if no word continues with these letters
+     */
+    public int walk(int node, CharSequence letters) {
+        for (int i = 0; i < letters.length() && node >= 0; i++) {
+            node = child(node, letters.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Returns whether the letters leading to a node form a valid word.
+     *
+     * @param node the node
+     * @return true if the node ends a word
+     */
+    public boolean isTerminal(int node) {
+        return (terminalBits(node >>> 5) & (1 << node)) != 0;
+    }
+
+    /**
+     * Returns whether a word is in the trie.
+     *
+     * @param word the word
+     * @return true if the word is in the trie
+     */
+    public boolean contains(String word) {
+        int node = walk(root(), word);
+        return node >= 0 && isTerminal(node);
+    }
+
+    /**
+     * Returns the number of letters of the longest word continuing from a node, so that searches
+     * needing more letters can give up on it.
+     *
+     * @param node the node
+     * @return the largest number of letters after the node, at most 127
+     */
+    public abstract int height(int node);
+
+    /**
+     * @param node the node
+     * @return the first edge leaving the node
+     */
+    public abstract int firstEdge(int node);
+
+    /**
+     * @param node the node
+     * @return the edge after the last edge leaving the node
+     */
+    public abstract int lastEdge(int node);
+
+    /**
+     * @param edge the edge
+     * @return the letter of the edge
+     */
+    public abstract char label(int edge);
+
+    /**
+     * @param edge the edge
+     * @return the node the edge leads to
+     */
+    public abstract int target(int edge);
+
+    /**
+     * @param index the index of a group of 32 nodes
+     * @return the terminal bits of the nodes of the group
+     */
+    abstract int terminalBits(int index);
+
+    /**
+     * Returns the number of nodes of the trie.
+     *
+     * @return the number of nodes
+     */
+    public int size() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of words in the trie.
+     *
+     * @return the number of terminal nodes
+     */
+    public int wordCount() {
+        int words = 0;
+        for (int i = 0; i < (nodes + 31) / 32; i++) {
+            words += Integer.bitCount(terminalBits(i));
+        }
+        return words;
+    }
+
+    /**
+     * Gives every word of the trie, in alphabetical order.
+     *
+     * @param action receives each word
+     */
+    public void forEachWord(Consumer<String> action) {
+        forEachWord(root(), new StringBuilder(), action);
+    }
+
+    private void forEachWord(int node, StringBuilder prefix, Consumer<String> action) {
+        if (isTerminal(node)) {
+            action.accept(prefix.toString());
+        }
+        for (int edge = firstEdge(node); edge < lastEdge(node); edge++) {
+            prefix.append(label(edge));
+            forEachWord(target(edge), prefix, action);
+            prefix.setLength(prefix.length() - 1);
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the words the trie was built from, so a mapped trie can be matched with its word list.
+     *
+     * @return the fingerprint, 0 if it wasn't given
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns whether the trie is stored off the heap, in a direct or mapped buffer.
+     *
+     * @return true if the trie is off the heap
+     */
+    public abstract boolean isOffHeap();
+
+    /**
+     * Returns the size of the arrays of the trie.
+     *
+     * @return the number of bytes used by the trie
+     */
+    public long sizeInBytes() {
+        return HEADER_SIZE + dataSize(nodes, edges);
+    }
+
+    private static int dataSize(int nodes, int edges) {
+        return 4 * nodes + 4 * nodes + 4 * edges + 4 * ((nodes + 31) / 32) + 2 * edges + nodes;
+    }
+
+    /**
+     * Puts the trie in a buffer, in the file layout.
+     */
+    private void put(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT).putInt(nodes).putInt(edges).putLong(fingerprint).putLong(source);
+        for (int node = 0; node < nodes; node++) {
+            buffer.putInt(firstEdge(node));
+        }
+        for (int node = 0; node < nodes; node++) {
+            buffer.putInt(lastEdge(node));
+        }
+        for (int edge = 0; edge < edges; edge++) {
+            buffer.putInt(target(edge));
+        }
+        for (int i = 0; i < (nodes + 31) / 32; i++) {
+            buffer.putInt(terminalBits(i));
+        }
+        for (int edge = 0; edge < edges; edge++) {
+            buffer.putChar(label(edge));
+        }
+        for (int node = 0; node < nodes; node++) {
+            buffer.put((byte) height(node));
+        }
+    }
+
+    /**
+     * A trie whose arrays are on the heap.
+     */
+    private static final class OnHeap extends WordTrie {
+
+        private final int[] firstEdges;
+        private final int[] lastEdges;
+        private final int[] targets;
+        private final int[] terminals;
+        private final char[] labels;
+        private final byte[] heights;
+
+        OnHeap(Builder builder, long fingerprint, long source) {
+            super(builder.nodes, builder.edges, fingerprint, source);
+            this.firstEdges = Arrays.copyOf(builder.firstEdges, builder.nodes);
+            this.lastEdges = Arrays.copyOf(builder.lastEdges, builder.nodes);
+            this.targets = Arrays.copyOf(builder.targets, builder.edges);
+            this.terminals = Arrays.copyOf(builder.terminals, (builder.nodes + 31) / 32);
+            this.labels = Arrays.copyOf(builder.labels, builder.edges);
+            this.heights = Arrays.copyOf(builder.heights, builder.nodes);
+        }
+
+        @Override
+        public int firstEdge(int node) {
+            return firstEdges[node];
+        }
+
+        @Override
+        public int lastEdge(int node) {
+            return lastEdges[node];
+        }
+
+        @Override
+        public char label(int edge) {
+            return labels[edge];
+        }
+
+        @Override
+        public int target(int edge) {
+            return targets[edge];
+        }
+
+        @Override
+        public int height(int node) {
+            return heights[node];
+        }
+
+        @Override
+        int terminalBits(int index) {
+            return terminals[index];
+        }
+
+        @Override
+        public boolean isOffHeap() {
+            return false;
+        }
+    }
+
+    /**
+     * A trie whose arrays are views of a direct or mapped buffer, in the file layout.
+     */
+    private static final class OffHeap extends WordTrie {
+
+        private final IntBuffer firstEdges;
+        private final IntBuffer lastEdges;
+        private final IntBuffer targets;
+        private final IntBuffer terminals;
+        private final CharBuffer labels;
+        private final ByteBuffer heights;
+
+        private OffHeap(int nodes, int edges, long fingerprint, long source, ByteBuffer buffer) {
+            super(nodes, edges, fingerprint, source);
+            this.firstEdges = slice(buffer, 4 * nodes).asIntBuffer();
+            this.lastEdges = slice(buffer, 4 * nodes).asIntBuffer();
+            this.targets = slice(buffer, 4 * edges).asIntBuffer();
+            this.terminals = slice(buffer, 4 * ((nodes + 31) / 32)).asIntBuffer();
+            this.labels = slice(buffer, 2 * edges).asCharBuffer();
+            this.heights = slice(buffer, nodes);
+        }
+
+        /**
+         * Reads the header of a buffer in the file layout and makes a trie of its arrays.
+         *
+         * @throws IllegalArgumentException if the buffer doesn't hold a trie
+         */
+        static OffHeap read(ByteBuffer storage) {
+            ByteBuffer buffer = storage.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new IllegalArgumentException("Not a word trie");
+            }
+            int nodes = buffer.getInt();
+            int edges = buffer.getInt();
+            long fingerprint = buffer.getLong();
+            long source = buffer.getLong();
+            if (buffer.remaining() != dataSize(nodes, edges)) {
+                throw new IllegalArgumentException("Word trie of " + nodes + " nodes and " + edges + " edges cut short");
+            }
+            return new OffHeap(nodes, edges, fingerprint, source, buffer);
+        }
+
+        private static ByteBuffer slice(ByteBuffer buffer, int length) {
+            ByteBuffer slice = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.position(buffer.position() + length);
+            return slice;
+        }
+
+        @Override
+        public int firstEdge(int node) {
+            return firstEdges.get(node);
+        }
+
+        @Override
+        public int lastEdge(int node) {
+            return lastEdges.get(node);
+        }
+
+        @Override
+        public char label(int edge) {
+            return labels.get(edge);
+        }
+
+        @Override
+        public int target(int edge) {
+            return targets.get(edge);
+        }
+
+        @Override
+        public int height(int node) {
+            return heights.get(node);
+        }
+
+        @Override
+        int terminalBits(int index) {
+            return terminals.get(index);
+        }
+
+        @Override
+        public boolean isOffHeap() {
+            return true;
+        }
+    }
+
+    /**
+     * Builds the arrays of a trie on the heap.
+     */
+    private static final class Builder {
+
+        private int[] firstEdges = new int[1024];
+        private int[] lastEdges = new int[1024];
+        private byte[] heights = new byte[1024];
+        private int[] terminals = new int[32];
+        private char[] labels = new char[1024];
+        private int[] targets = new int[1024];
+        private int nodes = 0;
+        private int edges = 0;
+
+        Builder(Collection<String> words) {
+            String[] sorted = words.toArray(new String[0]);
+            Arrays.sort(sorted);
+            build(sorted, 0, sorted.length, 0);
+        }
+
+        /**
+         * Builds the node for the words of a sorted range sharing their first letters.
+         *
+         * @param words the sorted words
+         * @param low the first word of the range (inclusive)
+         * @param high the last word of the range (exclusive)
+         * @param depth the number of letters shared by the words of the range
+         * @return the node built
+         */
+        private int build(String[] words, int low, int high, int depth) {
+            int node = nodes++;
+            if (node == firstEdges.length) {
+                firstEdges = Arrays.copyOf(firstEdges, node * 2);
+                lastEdges = Arrays.copyOf(lastEdges, node * 2);
+                heights = Arrays.copyOf(heights, node * 2);
+                terminals = Arrays.copyOf(terminals, node * 2 / 32);
+            }
+            // Sorting puts a word before the longer words it is a prefix of
+            while (low < high && words[low].length() == depth) {
+                terminals[node >>> 5] |= 1 << node;
+                low++;
+            }
+            int children = 0;
+            for (int i = low; i < high; children++) {
+                char letter = words[i].charAt(depth);
+                while (i < high && words[i].charAt(depth) == letter) {
+                    i++;
+                }
+            }
+            int edge = edges;
+            edges += children;
+            if (edges > labels.length) {
+                labels = Arrays.copyOf(labels, Math.max(edges, labels.length * 2));
+                targets = Arrays.copyOf(targets, labels.length);
+            }
+            firstEdges[node] = edge;
+            lastEdges[node] = edges;
+            int height = 0;
+            for (int i = low; i < high; edge++) {
+                char letter = words[i].charAt(depth);
+                int j = i;
+                while (j < high && words[j].charAt(depth) == letter) {
+                    j++;
+                }
+                // The arrays may grow while building the child, so they're only written to afterwards
+                int child = build(words, i, j, depth + 1);
+                labels[edge] = letter;
+                targets[edge] = child;
+                height = Math.max(height, heights[child] + 1);
+                i = j;
+            }
+            heights[node] = (byte) Math.min(height, Byte.MAX_VALUE);
+            return node;
+        }
+    }
+}